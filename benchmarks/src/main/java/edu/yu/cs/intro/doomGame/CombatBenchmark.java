@@ -0,0 +1,88 @@
+package edu.yu.cs.intro.doomGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-monster checks the bot makes on every pass: GameBot#canKill and GameBot#getAllProtectorsInRoom,
+ * against GameState#canKill on a snapshot of the same game.
+ * Neither changes the game, so one scenario is built per trial and a fixed sample of (player, monster, room)
+ * candidates is cycled through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class CombatBenchmark {
+    private static final int SAMPLE_SIZE=1024;
+
+    @Param({"10","100","1000"})
+    int roomCount;
+    @Param({"4","16","64"})
+    int monstersPerRoom;
+    @Param({"8"})
+    int playerCount;
+    @Param({"IMP_HEAVY","BALANCED","BARON_HEAVY"})
+    ScenarioFactory.MonsterMix mix;
+
+    private Player[] players;
+    private Monster[] monsters;
+    private Room[] rooms;
+    private GameState state;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createCandidates() {
+        GameBot bot=new ScenarioFactory(42L,this.roomCount,this.monstersPerRoom,this.playerCount,this.mix).createGameBot();
+        List<Room> allRooms=new ArrayList<>(bot.getAllRooms());
+        List<Player> allPlayers=new ArrayList<>(bot.getLivePlayers());
+        Random random=new Random(7L);
+        this.players=new Player[SAMPLE_SIZE];
+        this.monsters=new Monster[SAMPLE_SIZE];
+        this.rooms=new Room[SAMPLE_SIZE];
+        int i=0;
+        while(i<SAMPLE_SIZE) {
+            Room room=allRooms.get(random.nextInt(allRooms.size()));
+            List<Monster> live=new ArrayList<>(room.getLiveMonsters());
+            Monster monster=live.get(random.nextInt(live.size()));
+            //Monster#compareTo is not transitive across protector chains, so the room's TreeSet can fail to find
+            //a monster it holds; canKill rejects those (passThroughRooms catches and skips them), so don't sample them
+            if(!room.getMonsters().contains(monster)) {
+                continue;
+            }
+            this.rooms[i]=room;
+            this.monsters[i]=monster;
+            this.players[i]=allPlayers.get(random.nextInt(allPlayers.size()));
+            i++;
+        }
+        this.state=bot.snapshot();
+    }
+
+    @Benchmark
+    public boolean canKill() {
+        int i=this.advance();
+        return GameBot.canKill(this.players[i],this.monsters[i],this.rooms[i]);
+    }
+
+    @Benchmark
+    public boolean snapshotCanKill() {
+        int i=this.advance();
+        return this.state.canKill(this.players[i],this.monsters[i],this.rooms[i]);
+    }
+
+    @Benchmark
+    public SortedSet<Monster> getAllProtectorsInRoom() {
+        int i=this.advance();
+        return GameBot.getAllProtectorsInRoom(this.monsters[i],this.rooms[i]);
+    }
+
+    private int advance() {
+        int i=this.next;
+        this.next=(i+1)&(SAMPLE_SIZE-1);
+        return i;
+    }
+}
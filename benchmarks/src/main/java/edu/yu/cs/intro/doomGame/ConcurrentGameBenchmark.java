@@ -0,0 +1,58 @@
+package edu.yu.cs.intro.doomGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ConcurrentGame#play on a fixed thread pool against GameBot#play on the same scenario.
+ * Both mutate the game, so every invocation gets a freshly built one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConcurrentGameBenchmark {
+    @Param({"100","1000"})
+    int roomCount;
+    @Param({"16"})
+    int monstersPerRoom;
+    @Param({"8"})
+    int playerCount;
+    @Param({"1","4"})
+    int tasks;
+
+    private ScenarioFactory factory;
+    private ExecutorService executor;
+    private GameBot bot;
+
+    @Setup(Level.Trial)
+    public void createFactory() {
+        this.factory=new ScenarioFactory(42L,this.roomCount,this.monstersPerRoom,this.playerCount,ScenarioFactory.MonsterMix.BALANCED);
+        this.executor=Executors.newFixedThreadPool(this.tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void createGameBot() {
+        this.bot=this.factory.createGameBot();
+    }
+
+    @Benchmark
+    public boolean playConcurrently() throws InterruptedException {
+        return new ConcurrentGame(this.bot.getAllRooms(),this.bot.getLivePlayers()).play(this.executor,this.tasks);
+    }
+
+    @Benchmark
+    public boolean play() {
+        return this.bot.play();
+    }
+}
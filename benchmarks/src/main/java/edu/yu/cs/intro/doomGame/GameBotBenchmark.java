@@ -0,0 +1,61 @@
+package edu.yu.cs.intro.doomGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures whole-game solving: GameBot#play (with and without a GameSolver), GameBot#playIncrementally and a single GameBot#passThroughRooms.
+ * Both mutate the game, so every invocation gets a freshly built GameBot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBotBenchmark {
+    @Param({"10","100","1000"})
+    int roomCount;
+    @Param({"4","16"})
+    int monstersPerRoom;
+    @Param({"1","8","64"})
+    int playerCount;
+    @Param({"IMP_HEAVY","BALANCED","BARON_HEAVY"})
+    ScenarioFactory.MonsterMix mix;
+
+    private ScenarioFactory factory;
+    private GameBot bot;
+
+    @Setup(Level.Trial)
+    public void createFactory() {
+        this.factory=new ScenarioFactory(42L,this.roomCount,this.monstersPerRoom,this.playerCount,this.mix);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGameBot() {
+        this.bot=this.factory.createGameBot();
+    }
+
+    @Benchmark
+    public boolean play() {
+        return this.bot.play();
+    }
+
+    @Benchmark
+    public boolean playIncrementally() {
+        return this.bot.playIncrementally();
+    }
+
+    @Benchmark
+    public boolean playWithSolver() {
+        this.bot.setGameSolver(new GameSolver());
+        return this.bot.play();
+    }
+
+    @Benchmark
+    public Set<Room> passThroughRooms() {
+        return this.bot.passThroughRooms();
+    }
+}
@@ -0,0 +1,79 @@
+package edu.yu.cs.intro.doomGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GameBot#play with and without a GameJournal, against GameJournal#replay of the same game's journal.
+ * Every invocation gets a freshly built game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameJournalBenchmark {
+    @Param({"100","1000"})
+    int roomCount;
+    @Param({"16"})
+    int monstersPerRoom;
+    @Param({"8"})
+    int playerCount;
+
+    private ScenarioFactory factory;
+    private Path journal;
+    private Path scratch;
+    private GameBot bot;
+    private List<Room> rooms;
+    private List<Player> players;
+
+    @Setup(Level.Trial)
+    public void recordJournal() throws IOException {
+        this.factory=new ScenarioFactory(42L,this.roomCount,this.monstersPerRoom,this.playerCount,ScenarioFactory.MonsterMix.BALANCED);
+        this.journal=Files.createTempFile("game",".jrnl");
+        this.scratch=Files.createTempFile("scratch",".jrnl");
+        this.createGame();
+        try(GameJournal j=new GameJournal(this.journal,this.rooms,this.players)) {
+            this.bot.setGameEventListener(j);
+            this.bot.play();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournals() throws IOException {
+        Files.deleteIfExists(this.journal);
+        Files.deleteIfExists(this.scratch);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGame() {
+        this.bot=this.factory.createGameBot();
+        this.rooms=new ArrayList<>(this.bot.getAllRooms());
+        this.players=new ArrayList<>(this.bot.getLivePlayers());
+    }
+
+    @Benchmark
+    public boolean play() {
+        return this.bot.play();
+    }
+
+    @Benchmark
+    public boolean playJournaled() throws IOException {
+        try(GameJournal j=new GameJournal(this.scratch,this.rooms,this.players)) {
+            this.bot.setGameEventListener(j);
+            return this.bot.play();
+        }
+    }
+
+    @Benchmark
+    public long replay() throws IOException {
+        return GameJournal.replay(this.journal,this.rooms,this.players,Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,62 @@
+package edu.yu.cs.intro.doomGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one player killing every monster in one room: GameBot#killMonster on each live monster in turn, against the
+ * batched GameBot#clearRoom. Both kill the monsters, so every invocation gets a freshly built room and player.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoomClearingBenchmark {
+    @Param({"16","256","4096"})
+    int monstersPerRoom;
+    @Param({"IMP_HEAVY","BALANCED","BARON_HEAVY"})
+    ScenarioFactory.MonsterMix mix;
+
+    private GameBot bot;
+    private Room room;
+    private Player player;
+
+    @Setup(Level.Invocation)
+    public void createRoom() {
+        Random random=new Random(42L);
+        SortedSet<Monster> monsters=new TreeSet<>();
+        for(int i=0;i<this.monstersPerRoom;i++) {
+            monsters.add(new Monster(this.mix.pick(random)));
+        }
+        this.room=new Room(monsters,new HashSet<>(),new EnumMap<>(Weapon.class),0,"room");
+        //enough of everything to get through any room
+        this.player=new Player("player",0);
+        for(Weapon w:Weapon.values()) {
+            this.player.addWeapon(w);
+            this.player.addAmmunition(w,12*this.monstersPerRoom);
+        }
+        this.player.setHealth(Integer.MAX_VALUE/2);
+        this.bot=new GameBot();
+        this.bot.addRoom(this.room);
+        this.bot.addPlayer(this.player);
+    }
+
+    @Benchmark
+    public Room killMonsterEach() {
+        for(Monster m:new TreeSet<>(this.room.getLiveMonsters())) {
+            if(!m.isDead()) {
+                this.bot.killMonster(this.player,this.room,m);
+            }
+        }
+        return this.room;
+    }
+
+    @Benchmark
+    public List<Monster> clearRoom() {
+        return this.bot.clearRoom(this.player,this.room);
+    }
+}
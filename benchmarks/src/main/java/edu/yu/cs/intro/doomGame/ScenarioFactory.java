@@ -0,0 +1,119 @@
+package edu.yu.cs.intro.doomGame;
+
+import java.util.*;
+
+/**
+ * Builds large, reproducible game scenarios for the benchmarks.
+ * The same seed and parameters always produce the same rooms and players.
+ */
+public class ScenarioFactory {
+    /**
+     * Relative weights of each MonsterType (indexed by ordinal) used when filling a room
+     */
+    public enum MonsterMix {
+        IMP_HEAVY(8,4,2,1),
+        BALANCED(1,1,1,1),
+        BARON_HEAVY(1,2,3,6);
+
+        private final int[] weights;
+        private final int totalWeight;
+
+        MonsterMix(int... weights) {
+            this.weights=weights;
+            int total=0;
+            for(int w:weights) {
+                total+=w;
+            }
+            this.totalWeight=total;
+        }
+
+        /**
+         * @param random
+         * @return a MonsterType picked according to this mix's weights
+         */
+        MonsterType pick(Random random) {
+            int roll=random.nextInt(this.totalWeight);
+            for(MonsterType type:MonsterType.values()) {
+                roll-=this.weights[type.ordinal()];
+                if(roll<0) {
+                    return type;
+                }
+            }
+            return MonsterType.IMP;
+        }
+    }
+
+    /**
+     * Orders rooms like Room#compareTo, but breaks danger level ties by name so that rooms with the same danger
+     * level are not collapsed into one entry of the TreeSet
+     */
+    static final Comparator<Room> ROOM_ORDER=Comparator.comparingInt(Room::getDangerLevel).thenComparing(Room::getName);
+
+    private final long seed;
+    private final int roomCount;
+    private final int monstersPerRoom;
+    private final int playerCount;
+    private final MonsterMix mix;
+
+    /**
+     * @param seed seed for the random generator
+     * @param roomCount number of rooms to create
+     * @param monstersPerRoom number of monsters in every room
+     * @param playerCount number of players to create
+     * @param mix relative frequency of each MonsterType
+     */
+    ScenarioFactory(long seed, int roomCount, int monstersPerRoom, int playerCount, MonsterMix mix) {
+        this.seed=seed;
+        this.roomCount=roomCount;
+        this.monstersPerRoom=monstersPerRoom;
+        this.playerCount=playerCount;
+        this.mix=mix;
+    }
+
+    /**
+     * @return a new GameBot with freshly built rooms and players, sharing no state with any earlier bot
+     */
+    GameBot createGameBot() {
+        Random random=new Random(this.seed);
+        return new GameBot(this.createRooms(random),this.createPlayers(random));
+    }
+
+    private SortedSet<Room> createRooms(Random random) {
+        SortedSet<Room> rooms=new TreeSet<>(ROOM_ORDER);
+        Weapon[] weapons=Weapon.values();
+        for(int i=0;i<this.roomCount;i++) {
+            TreeSet<Monster> monsters=new TreeSet<>();
+            for(int j=0;j<this.monstersPerRoom;j++) {
+                monsters.add(new Monster(this.mix.pick(random)));
+            }
+            Set<Weapon> weaponsWon=new HashSet<>();
+            weaponsWon.add(weapons[1+random.nextInt(weapons.length-1)]);
+            Map<Weapon,Integer> ammoWon=new HashMap<>();
+            for(int w=1;w<weapons.length;w++) {
+                ammoWon.put(weapons[w],random.nextInt(4*this.monstersPerRoom+1));
+            }
+            rooms.add(new Room(monsters,weaponsWon,ammoWon,random.nextInt(2*this.monstersPerRoom+1),"Room "+i));
+        }
+        return rooms;
+    }
+
+    private SortedSet<Player> createPlayers(Random random) {
+        SortedSet<Player> players=new TreeSet<>();
+        Weapon[] weapons=Weapon.values();
+        //canKill's health check is optimistic, so a player can die part way through killMonster and make it throw.
+        //Start with enough health to survive being exposed to every monster on the map, once per kill.
+        int health=3*this.monstersPerRoom*this.monstersPerRoom*this.roomCount;
+        for(int i=0;i<this.playerCount;i++) {
+            //distinct health so that no two players compare as equal and collapse in the TreeSet
+            Player player=new Player("Player "+i,health+i);
+            for(int w=1;w<weapons.length;w++) {
+                if(random.nextBoolean()) {
+                    player.addWeapon(weapons[w]);
+                    player.addAmmunition(weapons[w],random.nextInt(4*this.monstersPerRoom+1));
+                }
+            }
+            players.add(player);
+        }
+        return players;
+    }
+}
@@ -0,0 +1,57 @@
+package edu.yu.cs.intro.doomGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures TickEngine#play with the players choosing on the calling thread and on ForkJoinPools of growing size.
+ * The engine works on its own GameState, so the game is built once and only the engine is made per invocation.
+ * How play scales with cores can only be read off a machine with at least as many cores as the largest pool has threads;
+ * with fewer, the pools' runs measure little more than their overhead and scheduling noise.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+@State(Scope.Thread)
+public class TickEngineBenchmark {
+    @Param({"100","1000"})
+    int roomCount;
+    @Param({"16"})
+    int monstersPerRoom;
+    @Param({"8","64"})
+    int playerCount;
+    @Param({"0","1","2","4","8"})
+    int parallelism;
+
+    private GameBot bot;
+    private ForkJoinPool pool;
+    private TickEngine engine;
+
+    @Setup(Level.Trial)
+    public void createGame() {
+        this.bot=new ScenarioFactory(42L,this.roomCount,this.monstersPerRoom,this.playerCount,ScenarioFactory.MonsterMix.BALANCED).createGameBot();
+        this.pool=this.parallelism==0 ? null : new ForkJoinPool(this.parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        if(this.pool!=null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createEngine() {
+        this.engine=new TickEngine(this.bot.getAllRooms(),this.bot.getLivePlayers());
+        this.engine.setForkJoinPool(this.pool);
+    }
+
+    @Benchmark
+    public boolean play() {
+        return this.engine.play();
+    }
+}
@@ -0,0 +1,116 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Plays many independent scenarios, each on its own task of the given Executor, with at most a fixed number in flight.
+ * Any Executor works: a fixed thread pool, or on Java 21+ Executors.newVirtualThreadPerTaskExecutor().
+ * Scenarios are taken from their stream only as slots free up, so the stream can be far larger than memory.
+ */
+public class BatchRunner {
+    private final Executor executor;
+    private final int maxConcurrency;
+
+    /**
+     * @param executor runs each scenario
+     * @param maxConcurrency the most scenarios that may be built or played at the same time
+     * @throws IllegalArgumentException if executor is null or maxConcurrency < 1
+     */
+    public BatchRunner(Executor executor, int maxConcurrency) {
+        if(executor==null) {
+            throw new IllegalArgumentException("executor can't be null");
+        }
+        if(maxConcurrency<1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.executor=executor;
+        this.maxConcurrency=maxConcurrency;
+    }
+
+    /**
+     * Play every scenario in the stream, handing each result to the consumer as soon as it is ready.
+     * The consumer is called on the executor's threads, possibly at the same time, in whatever order scenarios finish.
+     * Returns once every scenario has been played and its result consumed.
+     * @param scenarios
+     * @param results
+     * @return the number of scenarios played
+     * @throws InterruptedException if interrupted while waiting for a free slot or for the last scenarios to finish
+     * @throws RuntimeException the first exception thrown by the consumer, after all scenarios finished
+     * @throws VirtualMachineError the first one, other than a StackOverflowError, thrown while building or playing a
+     * scenario; no more scenarios are started after it, and it is rethrown once those already started have finished
+     */
+    public long run(Stream<? extends Scenario> scenarios, Consumer<? super ScenarioResult> results) throws InterruptedException {
+        Semaphore slots=new Semaphore(this.maxConcurrency);
+        AtomicReference<RuntimeException> consumerFailure=new AtomicReference<>();
+        AtomicReference<VirtualMachineError> fatal=new AtomicReference<>();
+        long count=0;
+        Iterator<? extends Scenario> it=scenarios.iterator();
+        while(it.hasNext()) {
+            Scenario scenario=it.next();
+            slots.acquire();
+            if(fatal.get()!=null) {
+                //the JVM may not be able to go on, so no more scenarios are started
+                slots.release();
+                break;
+            }
+            try {
+                this.executor.execute(()->{
+                    try {
+                        results.accept(play(scenario));
+                    }catch(RuntimeException e) {
+                        consumerFailure.compareAndSet(null,e);
+                    }catch(VirtualMachineError e) {
+                        fatal.compareAndSet(null,e);
+                        throw e;
+                    }finally {
+                        slots.release();
+                    }
+                });
+            }catch(RejectedExecutionException e) {
+                slots.release();
+                throw e;
+            }
+            count++;
+        }
+        //every slot is free again once the last scenario is done
+        slots.acquire(this.maxConcurrency);
+        slots.release(this.maxConcurrency);
+        if(fatal.get()!=null) {
+            throw fatal.get();
+        }
+        if(consumerFailure.get()!=null) {
+            throw consumerFailure.get();
+        }
+        return count;
+    }
+
+    /**
+     * build and play one scenario, timing each step
+     * @param scenario
+     * @return the result; a scenario that throws an Exception, or a StackOverflowError from GameBot's recursion, is reported
+     * as a failure rather than rethrown
+     * @throws VirtualMachineError other than a StackOverflowError, such as an OutOfMemoryError, since the JVM may not be
+     * able to go on
+     */
+    static ScenarioResult play(Scenario scenario) {
+        long start=System.nanoTime();
+        GameBot bot;
+        try {
+            bot=scenario.createGameBot();
+        }catch(Exception|StackOverflowError e) {
+            return new ScenarioResult(scenario.getName(),false,System.nanoTime()-start,0,e);
+        }
+        long built=System.nanoTime();
+        try {
+            boolean completed=bot.play();
+            return new ScenarioResult(scenario.getName(),completed,built-start,System.nanoTime()-built,null);
+        }catch(Exception|StackOverflowError e) {
+            return new ScenarioResult(scenario.getName(),false,built-start,System.nanoTime()-built,e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package edu.yu.cs.intro.doomGame;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A scenario stored in a compact binary file, which is memory-mapped once and decoded into new Rooms, Monsters and
+ * Players every time a GameBot is created. All numbers are big-endian.
+ * <pre>
+ * file    := magic:int version:byte roomCount:int room* playerCount:int player*
+ * room    := name healthWon:int weaponsWon:byte ammo monsterCount:int monster:byte*
+ * player  := name health:int weapons:byte ammo
+ * name    := length:unsigned short, then that many bytes of UTF-8
+ * ammo    := mask:byte, then rounds:int for each weapon whose ordinal bit is set in mask
+ * weapons := bit Weapon#ordinal() is set for each weapon
+ * monster := MonsterType ordinal in the low 4 bits; the high 4 bits are 0 for the type's own protector,
+ *            15 for a custom protector of null, or the custom protector's ordinal + 1
+ * </pre>
+ */
+public class BinaryScenario implements Scenario {
+    private static final int MAGIC=0x444F4F4D; //"DOOM"
+    private static final byte VERSION=1;
+    private static final int DEFAULT_PROTECTOR=0;
+    private static final int NO_PROTECTOR=15;
+    //values() copies its array on every call
+    private static final MonsterType[] MONSTER_TYPES=MonsterType.values();
+    private static final Weapon[] WEAPONS=Weapon.values();
+
+    private final String name;
+    private final ByteBuffer data;
+    /**rooms with at least this many monsters are decoded into CompactRooms*/
+    private final int compactRoomMonsters;
+
+    private BinaryScenario(String name, ByteBuffer data, int compactRoomMonsters) {
+        this.name=name;
+        this.data=data;
+        this.compactRoomMonsters=compactRoomMonsters;
+    }
+
+    /**
+     * Map the given scenario file into memory. The file is read lazily, by the operating system, as it is decoded.
+     * @param file
+     * @return the scenario stored in the file, named after the file
+     * @throws IOException if the file can't be opened or mapped
+     * @throws IllegalArgumentException if the file isn't a scenario file of a version this class can read
+     */
+    public static BinaryScenario map(Path file) throws IOException,IllegalArgumentException {
+        ByteBuffer data;
+        try(FileChannel channel=FileChannel.open(file,StandardOpenOption.READ)) {
+            data=channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+        }
+        if(data.remaining()<5||data.getInt(0)!=MAGIC) {
+            throw new IllegalArgumentException(file+" is not a scenario file");
+        }
+        if(data.get(4)!=VERSION) {
+            throw new IllegalArgumentException(file+" has unsupported scenario file version "+data.get(4));
+        }
+        return new BinaryScenario(file.getFileName().toString(),data,Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param minimumMonsters
+     * @return the same scenario, but decoding every room with at least the given number of monsters into a CompactRoom,
+     * which keeps them in primitive arrays rather than as Monster objects
+     * @throws IllegalArgumentException if minimumMonsters < 0
+     */
+    public BinaryScenario withCompactRooms(int minimumMonsters) {
+        if(minimumMonsters<0) {
+            throw new IllegalArgumentException("minimumMonsters can't be negative");
+        }
+        return new BinaryScenario(this.name,this.data,minimumMonsters);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Decode the file into a new game. Safe to call from several threads at once.
+     * Rooms are kept in the order they are stored in, and those with the same danger level aren't collapsed into one.
+     * @see GameBot#GameBot()
+     * @return a new GameBot for this scenario
+     * @throws IllegalArgumentException if the file is truncated or holds an unknown monster type or weapon
+     */
+    @Override
+    public GameBot createGameBot() {
+        ByteBuffer in=this.data.duplicate();
+        in.position(5);
+        try {
+            GameBot bot=new GameBot();
+            int roomCount=in.getInt();
+            for(int i=0;i<roomCount;i++) {
+                bot.addRoom(readRoom(in,this.compactRoomMonsters));
+            }
+            int playerCount=in.getInt();
+            for(int i=0;i<playerCount;i++) {
+                bot.addPlayer(readPlayer(in));
+            }
+            return bot;
+        }catch(BufferUnderflowException e) {
+            throw new IllegalArgumentException("scenario file "+this.name+" is truncated");
+        }
+    }
+
+    private static Room readRoom(ByteBuffer in, int compactRoomMonsters) {
+        String name=readName(in);
+        int healthWon=in.getInt();
+        Set<Weapon> weaponsWon=readWeapons(in.get());
+        Map<Weapon,Integer> ammoWon=new EnumMap<>(Weapon.class);
+        int ammoMask=in.get();
+        for(Weapon w:readWeapons(ammoMask)) {
+            ammoWon.put(w,in.getInt());
+        }
+        int monsterCount=in.getInt();
+        if(monsterCount>=compactRoomMonsters) {
+            return readCompactRoom(in,monsterCount,weaponsWon,ammoWon,healthWon,name);
+        }
+        SortedSet<Monster> monsters=new TreeSet<>();
+        for(int i=0;i<monsterCount;i++) {
+            monsters.add(readMonster(in.get()));
+        }
+        return new Room(monsters,weaponsWon,ammoWon,healthWon,name);
+    }
+
+    /**
+     * count the monsters of each code, and make one group of monsters out of each code used
+     */
+    private static Room readCompactRoom(ByteBuffer in, int monsterCount, Set<Weapon> weaponsWon, Map<Weapon,Integer> ammoWon, int healthWon, String name) {
+        int[] codeCounts=new int[256];
+        for(int i=0;i<monsterCount;i++) {
+            codeCounts[in.get()&0xFF]++;
+        }
+        List<MonsterType> types=new ArrayList<>();
+        List<MonsterType> protectors=new ArrayList<>();
+        List<Integer> counts=new ArrayList<>();
+        for(int code=0;code<codeCounts.length;code++) {
+            if(codeCounts[code]>0) {
+                Monster example=readMonster((byte)code);
+                types.add(example.getMonsterType());
+                protectors.add(example.getProtectedBy());
+                counts.add(codeCounts[code]);
+            }
+        }
+        int[] countArray=new int[counts.size()];
+        for(int i=0;i<countArray.length;i++) {
+            countArray[i]=counts.get(i);
+        }
+        return new CompactRoom(types.toArray(new MonsterType[0]),protectors.toArray(new MonsterType[0]),countArray,weaponsWon,ammoWon,healthWon,name);
+    }
+
+    private static Monster readMonster(byte code) {
+        MonsterType[] types=MONSTER_TYPES;
+        int type=code&0x0F;
+        int protector=(code>>4)&0x0F;
+        if(type>=types.length) {
+            throw new IllegalArgumentException("unknown monster type "+type);
+        }
+        if(protector==DEFAULT_PROTECTOR) {
+            return new Monster(types[type]);
+        }
+        if(protector==NO_PROTECTOR) {
+            return new Monster(types[type],null);
+        }
+        if(protector-1>=types.length) {
+            throw new IllegalArgumentException("unknown protector monster type "+(protector-1));
+        }
+        return new Monster(types[type],types[protector-1]);
+    }
+
+    private static Player readPlayer(ByteBuffer in) {
+        //a dead player can't be given weapons, so the health is only set once the inventory is in place
+        Player player=new Player(readName(in),0);
+        int health=in.getInt();
+        for(Weapon w:readWeapons(in.get())) {
+            player.addWeapon(w);
+        }
+        for(Weapon w:readWeapons(in.get())) {
+            int rounds=in.getInt();
+            player.changeAmmunitionRoundsForWeapon(w,rounds-player.getAmmunitionRoundsForWeapon(w));
+        }
+        player.setHealth(health);
+        return player;
+    }
+
+    private static String readName(ByteBuffer in) {
+        byte[] bytes=new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes,StandardCharsets.UTF_8);
+    }
+
+    private static Set<Weapon> readWeapons(int mask) {
+        Weapon[] all=WEAPONS;
+        if((mask&0xFF)>>>all.length!=0) {
+            throw new IllegalArgumentException("unknown weapon in mask "+Integer.toBinaryString(mask&0xFF));
+        }
+        Set<Weapon> weapons=EnumSet.noneOf(Weapon.class);
+        for(Weapon w:all) {
+            if((mask&(1<<w.ordinal()))!=0) {
+                weapons.add(w);
+            }
+        }
+        return weapons;
+    }
+
+    /**
+     * Write the given rooms and players to a scenario file, replacing the file if it exists.
+     * Every monster of each room is written, dead or alive, so the file describes the rooms as they were at the start of a game.
+     * @param file
+     * @param rooms
+     * @param players
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if a room's or player's name is longer than 65535 bytes of UTF-8
+     */
+    public static void write(Path file, Collection<Room> rooms, Collection<Player> players) throws IOException,IllegalArgumentException {
+        try(FileChannel channel=FileChannel.open(file,StandardOpenOption.WRITE,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out=new Output(channel);
+            out.ensure(9).putInt(MAGIC).put(VERSION).putInt(rooms.size());
+            for(Room room:rooms) {
+                out.putName(room.getName());
+                out.ensure(6).putInt(room.getHealthWonUponCompletion()).put(weaponMask(room.getWeaponsWonUponCompletion()));
+                out.putAmmo(room.getAmmoWonUponCompletion());
+                out.ensure(4).putInt(room.getMonsters().size());
+                for(Monster m:room.getMonsters()) {
+                    out.ensure(1).put(monsterCode(m));
+                }
+            }
+            out.ensure(4).putInt(players.size());
+            Weapon[] all=WEAPONS;
+            for(Player p:players) {
+                out.putName(p.getName());
+                Set<Weapon> weapons=EnumSet.noneOf(Weapon.class);
+                Map<Weapon,Integer> ammo=new EnumMap<>(Weapon.class);
+                for(Weapon w:all) {
+                    if(p.hasWeapon(w)) {
+                        weapons.add(w);
+                    }
+                    //a fist never runs out, and every player starts with one. A weapon's ammunition is always written,
+                    //since adding the weapon when the file is read gives the player rounds they may have since used up
+                    if(w!=Weapon.FIST&&(p.hasWeapon(w)||p.getAmmunitionRoundsForWeapon(w)!=0)) {
+                        ammo.put(w,p.getAmmunitionRoundsForWeapon(w));
+                    }
+                }
+                out.ensure(5).putInt(p.getHealth()).put(weaponMask(weapons));
+                out.putAmmo(ammo);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * @param m
+     * @return the byte that stands for the monster's type and protector in a scenario file
+     */
+    static byte monsterCode(Monster m) {
+        MonsterType type=m.getMonsterType();
+        int protector;
+        if(m.getProtectedBy()==type.getProtectedBy()) {
+            protector=DEFAULT_PROTECTOR;
+        }
+        else if(m.getProtectedBy()==null) {
+            protector=NO_PROTECTOR;
+        }
+        else {
+            protector=m.getProtectedBy().ordinal()+1;
+        }
+        return (byte)(protector<<4|type.ordinal());
+    }
+
+    private static byte weaponMask(Set<Weapon> weapons) {
+        int mask=0;
+        for(Weapon w:weapons) {
+            mask|=1<<w.ordinal();
+        }
+        return (byte)mask;
+    }
+
+    /**
+     * Buffers writes to a channel
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer=ByteBuffer.allocate(1<<16);
+
+        Output(FileChannel channel) {
+            this.channel=channel;
+        }
+
+        /**
+         * @param bytes
+         * @return the buffer, with room for at least the given number of bytes
+         */
+        ByteBuffer ensure(int bytes) throws IOException {
+            if(this.buffer.remaining()<bytes) {
+                this.flush();
+            }
+            return this.buffer;
+        }
+
+        void putName(String name) throws IOException {
+            byte[] bytes=name.getBytes(StandardCharsets.UTF_8);
+            if(bytes.length>0xFFFF) {
+                throw new IllegalArgumentException("name is too long: "+name);
+            }
+            this.ensure(2).putShort((short)bytes.length);
+            for(int i=0;i<bytes.length;) {
+                int chunk=Math.min(bytes.length-i,this.ensure(1).remaining());
+                this.buffer.put(bytes,i,chunk);
+                i+=chunk;
+            }
+        }
+
+        void putAmmo(Map<Weapon,Integer> ammo) throws IOException {
+            this.ensure(1).put(weaponMask(ammo.keySet()));
+            for(Weapon w:WEAPONS) {
+                if(ammo.containsKey(w)) {
+                    this.ensure(4).putInt(ammo.get(w));
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            this.buffer.flip();
+            while(this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+    }
+}
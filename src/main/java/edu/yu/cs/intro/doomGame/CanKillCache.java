@@ -0,0 +1,115 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * Remembers the answers given by GameBot#checkKill(Player, Monster, Room), which say whether a player can kill a monster
+ * and if not, why not.
+ * The answer only depends on the player's health, weapons and ammunition and on which monsters in the room are still alive,
+ * so an answer is stored under a fingerprint of the player's state plus the room's version (see Room#getVersion()).
+ * Any change to the player or any kill in the room produces a different key, so entries never have to be invalidated;
+ * stale ones are simply evicted, least recently used first, once the cache is full.
+ */
+class CanKillCache {
+    private final Map<Key,KillCheck> answers;
+
+    /**
+     * @param maxEntries the most answers to remember at once
+     * @throws IllegalArgumentException if maxEntries < 1
+     */
+    CanKillCache(int maxEntries) {
+        if(maxEntries<1) {
+            throw new IllegalArgumentException("cache must be able to hold at least one entry");
+        }
+        this.answers=new LinkedHashMap<Key,KillCheck>(16,0.75f,true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key,KillCheck> eldest) {
+                return this.size()>maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Same as GameBot#canKill(Player, Monster, Room), but only asks it if the same question wasn't already answered
+     * for the current state of the player and room
+     * @param player
+     * @param monster
+     * @param room
+     * @return can the player kill the monster
+     * @throws IllegalArgumentException if the monster is not located in the room or is dead
+     */
+    boolean canKill(Player player, Monster monster, Room room) throws IllegalArgumentException {
+        return this.checkKill(player,monster,room)==KillCheck.KILLABLE;
+    }
+
+    /**
+     * Same as GameBot#checkKill(Player, Monster, Room), but only asks it if the same question wasn't already answered
+     * for the current state of the player and room
+     * @param player
+     * @param monster
+     * @param room
+     * @return KILLABLE if the player can kill the monster, otherwise why not
+     * @throws IllegalArgumentException if the monster is not located in the room or is dead
+     */
+    KillCheck checkKill(Player player, Monster monster, Room room) throws IllegalArgumentException {
+        Key key=new Key(player,monster,room);
+        KillCheck answer=this.answers.get(key);
+        if(answer==null) {
+            answer=GameBot.checkKill(player,monster,room);
+            this.answers.put(key,answer);
+        }
+        return answer;
+    }
+
+    /**
+     * A monster, its room's version, and everything about a player that canKill looks at.
+     * The player itself is not part of the key: two players with the same health, weapons and ammunition get the same answer.
+     */
+    private static final class Key {
+        private final Monster monster;
+        private final Room room;
+        private final int roomVersion;
+        private final int health;
+        private final int weapons;
+        private final int[] ammo;
+        private final int hash;
+
+        Key(Player player, Monster monster, Room room) {
+            this.monster=monster;
+            this.room=room;
+            this.roomVersion=room.getVersion();
+            this.health=player.getHealth();
+            Weapon[] all=Weapon.values();
+            int weapons=0;
+            this.ammo=new int[all.length];
+            for(Weapon w:all) {
+                if(player.hasWeapon(w)) {
+                    weapons|=1<<w.ordinal();
+                }
+                this.ammo[w.ordinal()]=player.getAmmunitionRoundsForWeapon(w);
+            }
+            this.weapons=weapons;
+            //a monster of a CompactRoom is a view made on demand, so two views of the same monster must make the same key
+            int hash=monster.hashCode();
+            hash=31*hash+this.roomVersion;
+            hash=31*hash+this.health;
+            hash=31*hash+this.weapons;
+            hash=31*hash+Arrays.hashCode(this.ammo);
+            this.hash=hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key other=(Key)o;
+            return this.monster.equals(other.monster)&&this.room==other.room&&this.roomVersion==other.roomVersion
+                    &&this.health==other.health&&this.weapons==other.weapons&&Arrays.equals(this.ammo,other.ammo);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
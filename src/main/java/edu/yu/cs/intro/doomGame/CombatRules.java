@@ -0,0 +1,328 @@
+package edu.yu.cs.intro.doomGame;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * The rules of combat, compiled into tables once, so that looking a rule up is an array read rather than a switch or a
+ * search: for each MonsterType, the weapon it needs, the rounds it takes, the health a player loses to it, and the type
+ * that protects it, as an array and as an adjacency matrix; and for each weapon needed and each set of weapons a player
+ * can have, as a bitmask, the weapon the player fights with, which is the weakest one it has that will do.
+ * The rules are the ones MonsterType lists, unless the system property edu.yu.cs.intro.doomGame.combatRules names a
+ * properties file when the game's classes are loaded, in which case any of them can be replaced, with lines like:
+ * <pre>
+ * BARON_OF_HELL.weapon=PISTOL
+ * BARON_OF_HELL.rounds=8
+ * BARON_OF_HELL.exposure=2
+ * BARON_OF_HELL.protectedBy=
+ * </pre>
+ * where an empty protectedBy means none. The MonsterType fields and MonsterType#getProtectedBy() are set from the same
+ * rules, so all the code that reads them follows a custom rule set too.
+ * The whole file is checked as MonsterType loads, before any game can use it: a rule for an unknown type or field, a
+ * value that isn't a weapon, a type or a number in range, or protectors that protect each other, since then nothing
+ * could be killed first, fail that loading with an IllegalArgumentException saying which rule is wrong.
+ */
+public final class CombatRules {
+    /**the system property naming a properties file of rules to use instead of the defaults*/
+    public static final String PROPERTY="edu.yu.cs.intro.doomGame.combatRules";
+    private static final Weapon[] WEAPONS=Weapon.values();
+    /**how many sets of weapons a player can have*/
+    private static final int WEAPON_SETS=1<<WEAPONS.length;
+    private static final String WEAPON="weapon",ROUNDS="rounds",EXPOSURE="exposure",PROTECTED_BY="protectedBy";
+    /**by type, the ordinal of the weapon needed to kill it*/
+    private final int[] weaponNeeded;
+    /**by type, the rounds it takes*/
+    private final int[] rounds;
+    /**by type, the health a player loses per encounter with it*/
+    private final int[] exposure;
+    /**by type, the type protecting it, or null*/
+    private final MonsterType[] protectedBy;
+    /**[type][protector]: is the type protected by the protector*/
+    private final boolean[][] protectorMatrix;
+    /**[weapon needed][weapon used]: does the weapon used hurt a monster needing the weapon needed*/
+    private final boolean[][] hurts;
+    /**at weapon needed * WEAPON_SETS + the player's weapons as a bitmask, the weapon it fights with, or null if none will do*/
+    private final Weapon[] weaponToUse;
+
+    /**
+     * Only made once the MonsterTypes are, from their fields and their protectors
+     */
+    private CombatRules() {
+        MonsterType[] types=MonsterType.values();
+        this.weaponNeeded=new int[types.length];
+        this.rounds=new int[types.length];
+        this.exposure=new int[types.length];
+        this.protectedBy=new MonsterType[types.length];
+        this.protectorMatrix=new boolean[types.length][types.length];
+        Startup.checkTypeNames();
+        for(MonsterType t:types) {
+            this.weaponNeeded[t.ordinal()]=t.weaponNeededToKill.ordinal();
+            this.rounds[t.ordinal()]=t.ammunitionCountNeededToKill;
+            this.exposure[t.ordinal()]=t.playerHealthLostPerExposure;
+            MonsterType protector=Startup.protectedBy(t);
+            this.protectedBy[t.ordinal()]=protector;
+            if(protector!=null) {
+                this.protectorMatrix[t.ordinal()][protector.ordinal()]=true;
+            }
+        }
+        for(MonsterType t:types) {
+            //each type has at most one protector, so following them from any type either ends or goes round a cycle
+            MonsterType p=this.protectedBy[t.ordinal()];
+            for(int steps=0;p!=null;steps++) {
+                if(steps==types.length) {
+                    throw new IllegalArgumentException("the protectors of "+t+" protect each other");
+                }
+                p=this.protectedBy[p.ordinal()];
+            }
+        }
+        this.hurts=new boolean[WEAPONS.length][WEAPONS.length];
+        this.weaponToUse=new Weapon[WEAPONS.length*WEAPON_SETS];
+        for(int needed=0;needed<WEAPONS.length;needed++) {
+            for(int used=needed;used<WEAPONS.length;used++) {
+                this.hurts[needed][used]=true;
+            }
+            for(int set=0;set<WEAPON_SETS;set++) {
+                //the weakest weapon in the set at least as strong as the one needed
+                int usable=set&(-1<<needed);
+                this.weaponToUse[needed*WEAPON_SETS+set]=usable==0 ? null : WEAPONS[Integer.numberOfTrailingZeros(usable)];
+            }
+        }
+    }
+
+    /**
+     * @return the rules in force
+     */
+    public static CombatRules get() {
+        return Compiled.RULES;
+    }
+
+    /**
+     * @param type
+     * @return the weapon needed to kill a monster of the type; a stronger one does too
+     */
+    public Weapon getWeaponNeeded(MonsterType type) {
+        return WEAPONS[this.weaponNeeded[type.ordinal()]];
+    }
+
+    /**
+     * @param type
+     * @return the rounds it takes to kill a monster of the type
+     */
+    public int getRounds(MonsterType type) {
+        return this.rounds[type.ordinal()];
+    }
+
+    /**
+     * @param type
+     * @return the health a player loses per encounter with a live monster of the type
+     */
+    public int getExposure(MonsterType type) {
+        return this.exposure[type.ordinal()];
+    }
+
+    /**
+     * @param type
+     * @return the type that protects monsters of the given type unless they have a custom protector, or null if none does
+     */
+    public MonsterType getProtectedBy(MonsterType type) {
+        return this.protectedBy[type.ordinal()];
+    }
+
+    /**
+     * @param type
+     * @param protector
+     * @return true if monsters of the type are protected by monsters of the protector type, unless they have a custom one
+     */
+    public boolean isProtectedBy(MonsterType type, MonsterType protector) {
+        return this.protectorMatrix[type.ordinal()][protector.ordinal()];
+    }
+
+    /**
+     * @param weapon
+     * @param type
+     * @return true if the weapon hurts a monster of the type
+     */
+    public boolean hurts(Weapon weapon, MonsterType type) {
+        return this.hurts[this.weaponNeeded[type.ordinal()]][weapon.ordinal()];
+    }
+
+    /**
+     * @param player
+     * @param type
+     * @return the weapon the player fights a monster of the type with: the weakest one it has that hurts it, or null if
+     * it has none
+     */
+    public Weapon getWeaponToUse(Player player, MonsterType type) {
+        return this.weaponToUse[this.weaponNeeded[type.ordinal()]*WEAPON_SETS+player.weaponBits()];
+    }
+
+    /**
+     * @param weaponNeeded
+     * @param weaponBits a set of weapons, with bit Weapon#ordinal() set for each weapon in it
+     * @return the weakest weapon in the set at least as strong as the one needed, or null if there is none
+     */
+    Weapon getWeaponToUse(Weapon weaponNeeded, int weaponBits) {
+        return this.weaponToUse[weaponNeeded.ordinal()*WEAPON_SETS+weaponBits];
+    }
+
+    /**
+     * Holds the compiled rules, so they are only made once the MonsterTypes, which read the startup rules, are made.
+     * MonsterType makes them as the last step of its loading.
+     */
+    private static final class Compiled {
+        private static final CombatRules RULES=new CombatRules();
+    }
+
+    /**
+     * The rules read from the file named by PROPERTY, if any, as the MonsterTypes are made.
+     * It never refers to MonsterType itself, which is still being loaded when it is first used; the rules that name types
+     * are checked when MonsterType compiles the rules at the end of its loading.
+     */
+    static final class Startup {
+        private static final Properties RULES=load();
+
+        private Startup() {
+        }
+
+        /**
+         * Checks every rule but those naming types, which can only be checked once the MonsterTypes are made
+         * @return the rules in the file named by the system property
+         * @throws IllegalArgumentException if the file has a rule for an unknown field, or a weapon or number rule with a
+         * value that isn't one
+         * @throws IllegalStateException if the file can't be read
+         */
+        private static Properties load() {
+            Properties rules=new Properties();
+            String file=System.getProperty(PROPERTY);
+            if(file==null) {
+                return rules;
+            }
+            try(Reader reader=Files.newBufferedReader(Paths.get(file))) {
+                rules.load(reader);
+            }catch(IOException e) {
+                throw new IllegalStateException("can't read combat rules from "+file,e);
+            }
+            for(String key:rules.stringPropertyNames()) {
+                int dot=key.lastIndexOf('.');
+                String field=key.substring(dot+1);
+                if(dot<1||!(field.equals(WEAPON)||field.equals(ROUNDS)||field.equals(EXPOSURE)||field.equals(PROTECTED_BY))) {
+                    throw new IllegalArgumentException("unknown combat rule "+key+" in "+file);
+                }
+                String value=rules.getProperty(key);
+                if(field.equals(WEAPON)) {
+                    weapon(key,value);
+                }
+                else if(field.equals(ROUNDS)) {
+                    number(key,value,1);
+                }
+                else if(field.equals(EXPOSURE)) {
+                    number(key,value,0);
+                }
+            }
+            return rules;
+        }
+
+        /**
+         * @param type the name of the type being made
+         * @param defaultWeapon
+         * @return the weapon the startup rules say the type needs, or the default if they don't say
+         */
+        static Weapon weaponNeeded(String type, Weapon defaultWeapon) {
+            String value=RULES.getProperty(type+"."+WEAPON);
+            return value==null ? defaultWeapon : weapon(type+"."+WEAPON,value);
+        }
+
+        /**
+         * @param type the name of the type being made
+         * @param defaultRounds
+         * @return the rounds the startup rules say the type takes, or the default if they don't say
+         */
+        static int rounds(String type, int defaultRounds) {
+            String value=RULES.getProperty(type+"."+ROUNDS);
+            return value==null ? defaultRounds : number(type+"."+ROUNDS,value,1);
+        }
+
+        /**
+         * @param type the name of the type being made
+         * @param defaultExposure
+         * @return the health the startup rules say a player loses to the type, or the default if they don't say
+         */
+        static int exposure(String type, int defaultExposure) {
+            String value=RULES.getProperty(type+"."+EXPOSURE);
+            return value==null ? defaultExposure : number(type+"."+EXPOSURE,value,0);
+        }
+
+        /**
+         * @param key
+         * @param value
+         * @return the weapon the value names
+         * @throws IllegalArgumentException if it names none
+         */
+        private static Weapon weapon(String key, String value) {
+            try {
+                return Weapon.valueOf(value.trim());
+            }catch(IllegalArgumentException e) {
+                throw new IllegalArgumentException(key+" must be a weapon, not "+value,e);
+            }
+        }
+
+        /**
+         * @param key
+         * @param value
+         * @param min
+         * @return the number the value is
+         * @throws IllegalArgumentException if it isn't a number >= min
+         */
+        private static int number(String key, String value, int min) {
+            int n;
+            try {
+                n=Integer.parseInt(value.trim());
+            }catch(NumberFormatException e) {
+                throw new IllegalArgumentException(key+" must be a number, not "+value,e);
+            }
+            if(n<min) {
+                throw new IllegalArgumentException(key+" must be at least "+min);
+            }
+            return n;
+        }
+
+        /**
+         * Only called once the MonsterTypes are made
+         * @throws IllegalArgumentException if a rule is for a type that doesn't exist
+         */
+        private static void checkTypeNames() {
+            for(String key:RULES.stringPropertyNames()) {
+                String type=key.substring(0,key.lastIndexOf('.'));
+                try {
+                    MonsterType.valueOf(type);
+                }catch(IllegalArgumentException e) {
+                    throw new IllegalArgumentException("unknown monster type in combat rule "+key,e);
+                }
+            }
+        }
+
+        /**
+         * Only called once the MonsterTypes are made
+         * @param type
+         * @return the type the startup rules say protects the type, or its default protector if they don't say
+         * @throws IllegalArgumentException if the rule names no type
+         */
+        private static MonsterType protectedBy(MonsterType type) {
+            String key=type.name()+"."+PROTECTED_BY;
+            String value=RULES.getProperty(key);
+            if(value==null) {
+                return type.getDefaultProtectedBy();
+            }
+            if(value.trim().isEmpty()) {
+                return null;
+            }
+            try {
+                return MonsterType.valueOf(value.trim());
+            }catch(IllegalArgumentException e) {
+                throw new IllegalArgumentException(key+" must be a monster type or nothing, not "+value,e);
+            }
+        }
+    }
+}
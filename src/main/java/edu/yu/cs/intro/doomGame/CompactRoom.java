@@ -0,0 +1,560 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * A Room for very large numbers of monsters. Instead of Monster objects in TreeSets, it keeps each monster's type,
+ * protector and the rounds still needed to kill it in parallel primitive arrays, with bitsets for which monsters are dead
+ * and which the room still counts as live, and counts of the live monsters of each type and protector. So the danger level,
+ * the health lost per encounter and a monster's protectors never need the monsters to be looked at one by one.
+ * The Monster objects it hands out are views, made on demand: two views of the same monster are equal and compare as 0,
+ * so they can be looked up in the room's sets, in a GameState, or in any other set or map.
+ * Monsters are stored grouped by type and protector, and the room's sets iterate in that order, which puts protectors
+ * before the monsters they protect wherever Monster#compareTo gives a consistent order.
+ */
+public class CompactRoom extends Room {
+    private static final MonsterType[] TYPES=MonsterType.values();
+    /**a protector is stored as its ordinal+1, or as 0 for no protector*/
+    private static final int PROTECTOR_CODES=TYPES.length+1;
+    private static final int ALL=0;
+    private static final int LIVE=1;
+    private static final int DEAD=2;
+
+    private final int size;
+    private final byte[] types;
+    private final byte[] protectors;
+    private final int[] roundsNeeded;
+    private final BitSet dead;
+    /**like Room#getLiveMonsters, a monster attacked to death is still live here until #monsterKilled is called for it*/
+    private final BitSet live;
+    /**by group, i.e. type ordinal*PROTECTOR_CODES+protector code, where its monsters are stored, how many there are, and how many are live*/
+    private final int[] groupStart=new int[TYPES.length*PROTECTOR_CODES];
+    private final int[] groupSize=new int[TYPES.length*PROTECTOR_CODES];
+    private final int[] liveInGroup=new int[TYPES.length*PROTECTOR_CODES];
+    private final int[] liveOfType=new int[TYPES.length];
+    private int liveCount;
+    private int dangerLevel;
+    private int healthLostPerEncounter;
+    private int version;
+    private final SortedSet<Monster> monsters=new MonsterSet(ALL,0,Integer.MAX_VALUE);
+    private final SortedSet<Monster> liveMonsters=new MonsterSet(LIVE,0,Integer.MAX_VALUE);
+    private final SortedSet<Monster> deadMonsters=new MonsterSet(DEAD,0,Integer.MAX_VALUE);
+
+    /**
+     * The room holds counts[i] monsters of types[i], each protected by protectedBy[i], for every i.
+     * @param types
+     * @param protectedBy the protector of each group of monsters, or null for none; pass types[i].getProtectedBy() for the type's own protector
+     * @param counts
+     * @param weaponsWonUponCompletion weapons a player gains when killing the last monster in this room
+     * @param ammoWonUponCompletion ammunition a player gains when killing the last monster in this room
+     * @param healthWonUponCompletion health a player gains when killing the last monster in this room
+     * @param name the room's name
+     * @throws IllegalArgumentException if the arrays are null or of different lengths, a type is null, a count is negative,
+     * or there are more than Integer.MAX_VALUE monsters in all
+     */
+    public CompactRoom(MonsterType[] types, MonsterType[] protectedBy, int[] counts, Set<Weapon> weaponsWonUponCompletion, Map<Weapon,Integer> ammoWonUponCompletion, int healthWonUponCompletion, String name) {
+        super(weaponsWonUponCompletion,ammoWonUponCompletion,healthWonUponCompletion,name);
+        if(types==null||protectedBy==null||counts==null||types.length!=protectedBy.length||types.length!=counts.length) {
+            throw new IllegalArgumentException("types, protectedBy and counts must be arrays of the same length");
+        }
+        long total=0;
+        for(int i=0;i<types.length;i++) {
+            if(types[i]==null) {
+                throw new IllegalArgumentException("monster type can't be null");
+            }
+            if(counts[i]<0) {
+                throw new IllegalArgumentException("count can't be negative");
+            }
+            total+=counts[i];
+        }
+        if(total>Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("a room can't hold more than "+Integer.MAX_VALUE+" monsters");
+        }
+        for(int i=0;i<types.length;i++) {
+            this.groupSize[group(types[i].ordinal(),protectedBy[i]==null ? 0 : protectedBy[i].ordinal()+1)]+=counts[i];
+        }
+        this.size=(int)total;
+        this.types=new byte[this.size];
+        this.protectors=new byte[this.size];
+        this.roundsNeeded=new int[this.size];
+        this.dead=new BitSet(this.size);
+        this.live=new BitSet(this.size);
+        int next=0;
+        for(int g:this.groupOrder()) {
+            MonsterType type=TYPES[g/PROTECTOR_CODES];
+            int end=next+this.groupSize[g];
+            Arrays.fill(this.types,next,end,(byte)type.ordinal());
+            Arrays.fill(this.protectors,next,end,(byte)(g%PROTECTOR_CODES));
+            Arrays.fill(this.roundsNeeded,next,end,type.ammunitionCountNeededToKill);
+            this.groupStart[g]=next;
+            this.liveInGroup[g]=this.groupSize[g];
+            this.liveOfType[type.ordinal()]+=this.groupSize[g];
+            this.dangerLevel+=(type.ordinal()+1)*this.groupSize[g];
+            this.healthLostPerEncounter+=type.playerHealthLostPerExposure*this.groupSize[g];
+            next=end;
+        }
+        this.live.set(0,this.size);
+        this.liveCount=this.size;
+    }
+
+    private static int group(int type, int protectorCode) {
+        return type*PROTECTOR_CODES+protectorCode;
+    }
+
+    /**
+     * The groups that have monsters, in the order to store them in: each time, the first group, by type and then protector,
+     * that Monster#compareTo doesn't put after any group still left; if every group is put after another, just the first one
+     * @return the group numbers
+     */
+    private List<Integer> groupOrder() {
+        List<Integer> left=new ArrayList<>();
+        for(int g=0;g<this.groupSize.length;g++) {
+            if(this.groupSize[g]>0) {
+                left.add(g);
+            }
+        }
+        List<Integer> order=new ArrayList<>(left.size());
+        while(!left.isEmpty()) {
+            int pick=0;
+            for(int i=0;i<left.size();i++) {
+                boolean first=true;
+                for(int other:left) {
+                    first&=compareGroups(left.get(i),other)<=0;
+                }
+                if(first) {
+                    pick=i;
+                    break;
+                }
+            }
+            order.add(left.remove(pick));
+        }
+        return order;
+    }
+
+    /**
+     * @return how Monster#compareTo orders a monster of group a against one of group b, or 0 if it depends on which monsters they are
+     */
+    private static int compareGroups(int a, int b) {
+        int typeA=a/PROTECTOR_CODES;
+        int typeB=b/PROTECTOR_CODES;
+        if(a%PROTECTOR_CODES==typeB+1) {
+            return 1;
+        }
+        if(b%PROTECTOR_CODES==typeA+1) {
+            return -1;
+        }
+        return Integer.compare(typeA,typeB);
+    }
+
+    private int groupOf(int slot) {
+        return group(this.types[slot],this.protectors[slot]);
+    }
+
+    /**
+     * @param monster
+     * @return where the monster is stored, or -1 if it isn't a view of one of this room's monsters
+     */
+    private int slotOf(Object monster) {
+        if(monster instanceof MonsterView&&((MonsterView)monster).room()==this) {
+            return ((MonsterView)monster).slot;
+        }
+        return -1;
+    }
+
+    /**
+     * @param type
+     * @return how many of the room's live monsters are of the given type
+     */
+    @Override
+    public int getLiveMonsterCount(MonsterType type) {
+        return this.liveOfType[type.ordinal()];
+    }
+
+    @Override
+    protected int getLiveMonsterCount(MonsterType type, MonsterType protectedBy) {
+        return this.liveInGroup[group(type.ordinal(),protectedBy==null ? 0 : protectedBy.ordinal()+1)];
+    }
+
+    /**
+     * Mark the given monster as being dead, and take it out of the room's live monsters and their danger level and health lost per encounter
+     * @param monster
+     * @throws IllegalArgumentException if the monster isn't one of this room's
+     */
+    @Override
+    protected void monsterKilled(Monster monster) {
+        int slot=this.slotOf(monster);
+        if(slot<0) {
+            throw new IllegalArgumentException("monster is not in this room");
+        }
+        this.dead.set(slot);
+        if(this.live.get(slot)) {
+            MonsterType type=TYPES[this.types[slot]];
+            this.live.clear(slot);
+            this.liveCount--;
+            this.liveInGroup[this.groupOf(slot)]--;
+            this.liveOfType[type.ordinal()]--;
+            this.dangerLevel-=type.ordinal()+1;
+            this.healthLostPerEncounter-=type.playerHealthLostPerExposure;
+        }
+        this.version++;
+    }
+
+    /**
+     * Each kill already takes constant time here, so the monsters are simply killed one by one
+     * @param killed
+     */
+    @Override
+    protected void monstersKilled(List<Monster> killed) {
+        for(Monster m:killed) {
+            this.monsterKilled(m);
+        }
+    }
+
+    /**
+     * Same as Room#getAllProtectors, but works out which types are in the closure from the live counts of each type and
+     * protector, so only the monsters in the answer are looked at
+     * @param monster
+     * @return a new set, which the caller may change
+     */
+    @Override
+    protected SortedSet<Monster> getAllProtectors(Monster monster) {
+        SortedSet<Monster> closure=new TreeSet<>();
+        if(monster.getProtectedBy()==null) {
+            return closure;
+        }
+        int closureTypes=this.addProtectorTypes(monster.getProtectedBy().ordinal(),0);
+        for(int g=0;g<this.groupSize.length;g++) {
+            if((closureTypes&(1<<(g/PROTECTOR_CODES)))!=0) {
+                this.addLiveMonsters(g,closure);
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param type
+     * @param closureTypes bit t is set for each type t already in the closure
+     * @return closureTypes, plus the given type and, transitively, the protectors of its live monsters
+     */
+    private int addProtectorTypes(int type, int closureTypes) {
+        if((closureTypes&(1<<type))!=0) {
+            return closureTypes;
+        }
+        closureTypes|=1<<type;
+        for(int code=1;code<PROTECTOR_CODES;code++) {
+            if(this.liveInGroup[group(type,code)]>0) {
+                closureTypes=this.addProtectorTypes(code-1,closureTypes);
+            }
+        }
+        return closureTypes;
+    }
+
+    /**
+     * add a view of each of the group's live monsters to the collection
+     * @param g
+     * @param monsters
+     */
+    private void addLiveMonsters(int g, Collection<Monster> monsters) {
+        if(this.liveInGroup[g]==0) {
+            return;
+        }
+        int end=this.groupStart[g]+this.groupSize[g];
+        for(int slot=this.live.nextSetBit(this.groupStart[g]);slot>=0&&slot<end;slot=this.live.nextSetBit(slot+1)) {
+            monsters.add(new MonsterView(slot));
+        }
+    }
+
+    /**
+     * @param type
+     * @return a new list of views of the live monsters of the given type, in the order #getAllProtectors goes through them
+     */
+    @Override
+    protected List<Monster> getLiveMonsters(MonsterType type) {
+        List<Monster> monsters=new ArrayList<>(this.liveOfType[type.ordinal()]);
+        for(int code=0;code<PROTECTOR_CODES;code++) {
+            this.addLiveMonsters(group(type.ordinal(),code),monsters);
+        }
+        return monsters;
+    }
+
+    /**
+     * Only the live slots are copied; each view is made when the iteration reaches it
+     * @return the live monsters as they are now, in the order they are stored in, which later kills don't change
+     */
+    @Override
+    protected Iterable<Monster> snapshotLiveMonsters() {
+        BitSet slots=(BitSet)this.live.clone();
+        return ()->slots.stream().<Monster>mapToObj(MonsterView::new).iterator();
+    }
+
+    @Override
+    protected int getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public int getDangerLevel() {
+        return this.dangerLevel;
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return this.liveCount==0;
+    }
+
+    /**
+     * @return every monster in the room, as an unmodifiable view
+     */
+    @Override
+    public SortedSet<Monster> getMonsters() {
+        return this.monsters;
+    }
+
+    /**
+     * @return the live monsters in the room, as an unmodifiable view that follows later kills
+     */
+    @Override
+    public SortedSet<Monster> getLiveMonsters() {
+        return this.liveMonsters;
+    }
+
+    /**
+     * @return the dead monsters in the room, as an unmodifiable view that follows later kills
+     */
+    @Override
+    public SortedSet<Monster> getDeadMonsters() {
+        return this.deadMonsters;
+    }
+
+    /**
+     * kept up to date on every kill, so this takes constant time
+     * @return the amount of health lost
+     */
+    @Override
+    public int getPlayerHealthLostPerEncounter() {
+        return this.healthLostPerEncounter;
+    }
+
+    /**
+     * One of the room's monsters; all its state is in the room's arrays
+     */
+    private final class MonsterView extends Monster {
+        private final int slot;
+
+        MonsterView(int slot) {
+            super(TYPES[types[slot]],protectors[slot]==0 ? null : TYPES[protectors[slot]-1]);
+            this.slot=slot;
+        }
+
+        private CompactRoom room() {
+            return CompactRoom.this;
+        }
+
+        @Override
+        protected void setIsDead(boolean state) {
+            dead.set(this.slot,state);
+        }
+
+        @Override
+        public boolean isDead() {
+            return dead.get(this.slot);
+        }
+
+        @Override
+        protected int getAmmoRoundsRequiredToKill() {
+            return roundsNeeded[this.slot];
+        }
+
+        @Override
+        protected boolean attack(Weapon weapon, int rounds) throws IllegalArgumentException,IllegalStateException {
+            if(weapon==null||!CombatRules.get().hurts(weapon,this.getMonsterType())||rounds<1) {
+                throw new IllegalArgumentException("wrong weapon or too few rounds");
+            }
+            if(this.isDead()) {
+                throw new IllegalStateException("monster is already dead");
+            }
+            if(rounds>=roundsNeeded[this.slot]) {
+                dead.set(this.slot);
+                roundsNeeded[this.slot]=0;
+            }
+            else {
+                roundsNeeded[this.slot]-=rounds;
+            }
+            return this.isDead();
+        }
+
+        /**
+         * 0 for another view of the same monster, otherwise as Monster#compareTo, which breaks the last ties by where the monsters are stored
+         */
+        @Override
+        public int compareTo(Monster other) {
+            if(this.equals(other)) {
+                return 0;
+            }
+            return super.compareTo(other);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return slotOf(o)==this.slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.slot;
+        }
+    }
+
+    /**
+     * An unmodifiable view of all, the live, or the dead monsters of the room that are stored in a range of slots, in the
+     * order they are stored in. A range view's bounds are monsters of the room, found by where they are stored.
+     */
+    private final class MonsterSet extends AbstractSet<Monster> implements SortedSet<Monster> {
+        private final int which;
+        /**the first slot in range*/
+        private final int from;
+        /**the slot after the last one in range, or more than the room's size for all the slots after from*/
+        private final int to;
+
+        MonsterSet(int which, int from, int to) {
+            this.which=which;
+            this.from=from;
+            this.to=to;
+        }
+
+        /**
+         * @return the slot after the last one in range
+         */
+        private int end() {
+            return Math.min(this.to,size);
+        }
+
+        /**
+         * @return the first slot at or after the given one that is in this set, or -1 if there is none
+         */
+        private int next(int slot) {
+            slot=Math.max(slot,this.from);
+            switch(this.which) {
+                case LIVE:
+                    slot=live.nextSetBit(slot);
+                    break;
+                case DEAD:
+                    slot=live.nextClearBit(slot);
+                    break;
+            }
+            return slot>=0&&slot<this.end() ? slot : -1;
+        }
+
+        @Override
+        public Iterator<Monster> iterator() {
+            return new Iterator<Monster>() {
+                private int next=MonsterSet.this.next(0);
+
+                @Override
+                public boolean hasNext() {
+                    return this.next>=0;
+                }
+
+                @Override
+                public Monster next() {
+                    if(this.next<0) {
+                        throw new NoSuchElementException();
+                    }
+                    Monster m=new MonsterView(this.next);
+                    this.next=MonsterSet.this.next(this.next+1);
+                    return m;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int slots=Math.max(this.end()-this.from,0);
+            //the whole room's counts are kept up to date, but a range's have to be counted
+            int liveSlots=slots==size ? liveCount : live.get(this.from,this.from+slots).cardinality();
+            switch(this.which) {
+                case LIVE:
+                    return liveSlots;
+                case DEAD:
+                    return slots-liveSlots;
+                default:
+                    return slots;
+            }
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int slot=slotOf(o);
+            return slot>=0&&this.next(slot)==slot;
+        }
+
+        /**
+         * @return null: the monsters are in the order they are stored in, which is their natural order wherever that is consistent
+         */
+        @Override
+        public Comparator<? super Monster> comparator() {
+            return null;
+        }
+
+        @Override
+        public Monster first() {
+            int slot=this.next(0);
+            if(slot<0) {
+                throw new NoSuchElementException();
+            }
+            return new MonsterView(slot);
+        }
+
+        @Override
+        public Monster last() {
+            int slot=this.end()-1;
+            switch(this.which) {
+                case LIVE:
+                    slot=live.previousSetBit(slot);
+                    break;
+                case DEAD:
+                    slot=live.previousClearBit(slot);
+                    break;
+            }
+            if(slot<this.from) {
+                throw new NoSuchElementException();
+            }
+            return new MonsterView(slot);
+        }
+
+        /**
+         * @param monster
+         * @return where the monster is stored
+         * @throws IllegalArgumentException if the monster isn't one of this room's, or is outside this set's range
+         */
+        private int boundOf(Monster monster) {
+            int slot=slotOf(monster);
+            if(slot<0) {
+                throw new IllegalArgumentException("monster is not in this room");
+            }
+            if(slot<this.from||slot>this.end()) {
+                throw new IllegalArgumentException("monster is out of this set's range");
+            }
+            return slot;
+        }
+
+        @Override
+        public SortedSet<Monster> subSet(Monster fromElement, Monster toElement) {
+            int fromSlot=this.boundOf(fromElement);
+            int toSlot=this.boundOf(toElement);
+            if(fromSlot>toSlot) {
+                throw new IllegalArgumentException("fromElement is after toElement");
+            }
+            return new MonsterSet(this.which,fromSlot,toSlot);
+        }
+
+        @Override
+        public SortedSet<Monster> headSet(Monster toElement) {
+            return new MonsterSet(this.which,this.from,this.boundOf(toElement));
+        }
+
+        @Override
+        public SortedSet<Monster> tailSet(Monster fromElement) {
+            return new MonsterSet(this.which,this.boundOf(fromElement),this.to);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A game whose rooms and players many threads can play at the same time.
+ * Room, Monster and Player aren't thread-safe themselves, so every look at or change to them goes through here, under
+ * striped locks: each room and each player maps to one of a fixed number of locks, and an operation holds the locks of
+ * the room and player it touches, always taken in stripe order, so that two threads never wait on each other.
+ * A kill, along with the kills of the monster's protectors and the rewards reaped if it completes the room, is made under
+ * one hold of those locks, so no other thread sees the room or the player partway through it, and each room's rewards
+ * go to exactly one player.
+ * While the game is being played, its rooms and players must only be changed through it, and not be played by a GameBot
+ * at the same time.
+ */
+public class ConcurrentGame {
+    private final List<Room> rooms;
+    private final List<Player> players;
+    /**a power of two number of locks, shared by the rooms and players*/
+    private final ReentrantLock[] stripes;
+    /**makes the kills and reaps the rewards; it has no rooms or players of its own, so it only touches the ones it is given*/
+    private final GameBot engine=new GameBot();
+    private GameEventListener listener=GameEventListener.NONE;
+
+    /**
+     * Use four locks per available processor
+     * @param rooms
+     * @param players the players, in the order they are asked to kill each monster
+     * @throws IllegalArgumentException if rooms or players is null or has a null element
+     */
+    public ConcurrentGame(Collection<Room> rooms, Collection<Player> players) {
+        this(rooms,players,4*Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param rooms
+     * @param players the players, in the order they are asked to kill each monster
+     * @param stripeCount how many locks to share among the rooms and players; rounded up to a power of two
+     * @throws IllegalArgumentException if rooms or players is null or has a null element, or stripeCount < 1
+     */
+    public ConcurrentGame(Collection<Room> rooms, Collection<Player> players, int stripeCount) {
+        if(rooms==null||players==null) {
+            throw new IllegalArgumentException("rooms and players can't be null");
+        }
+        if(stripeCount<1||stripeCount>1<<30) {
+            throw new IllegalArgumentException("stripeCount must be between 1 and 2^30");
+        }
+        this.rooms=new ArrayList<>(rooms);
+        this.players=new ArrayList<>(players);
+        //a sorted set can't be asked whether it contains null
+        if(this.rooms.contains(null)||this.players.contains(null)) {
+            throw new IllegalArgumentException("rooms and players can't contain null");
+        }
+        int n=1;
+        while(n<stripeCount) {
+            n<<=1;
+        }
+        this.stripes=new ReentrantLock[n];
+        for(int i=0;i<this.stripes.length;i++) {
+            this.stripes[i]=new ReentrantLock();
+        }
+    }
+
+    /**
+     * Set the listener that is told about every room attempted, kill evaluated, monster killed and reward reaped.
+     * It is called on whichever thread made the kill, while that thread holds the room's and player's locks, so it
+     * must be thread-safe, and must not call back into this game. Must not be called while the game is being played.
+     * @param listener
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void setGameEventListener(GameEventListener listener) {
+        if(listener==null) {
+            throw new IllegalArgumentException("listener can't be null");
+        }
+        this.listener=listener;
+        this.engine.setGameEventListener(listener);
+    }
+
+    /**
+     * If the player can kill the monster, kill it, with any live protectors first, and if that completes the room, give
+     * the player its rewards; all as one step, which no other thread can see partway through
+     * @param player
+     * @param room
+     * @param monster
+     * @return true if the monster was killed, false if the player couldn't kill it or it was already dead
+     * @throws IllegalArgumentException if any of the arguments is null, or the monster is not in the room
+     */
+    public boolean kill(Player player, Room room, Monster monster) throws IllegalArgumentException {
+        if(player==null||room==null||monster==null) {
+            throw new IllegalArgumentException("player, room and monster can't be null");
+        }
+        int first=Math.min(this.stripe(room),this.stripe(player));
+        int second=Math.max(this.stripe(room),this.stripe(player));
+        this.stripes[first].lock();
+        this.stripes[second].lock();
+        try {
+            //another thread may have killed it since the caller looked
+            if(monster.isDead()||player.isDead()) {
+                return false;
+            }
+            boolean canKill=GameBot.canKill(player,monster,room);
+            this.listener.killEvaluated(player,monster,room,canKill);
+            if(canKill) {
+                this.engine.killMonster(player,room,monster);
+                if(room.isCompleted()) {
+                    this.engine.reapCompletionRewards(player,room);
+                }
+            }
+            return canKill;
+        }finally {
+            this.stripes[second].unlock();
+            this.stripes[first].unlock();
+        }
+    }
+
+    /**
+     * Have the player kill every live monster in the room and reap its rewards, as one step
+     * @param player
+     * @param room
+     * @return the monsters killed, in the order they were killed; empty if the room was already completed
+     * @throws IllegalArgumentException if player or room is null
+     * @throws IllegalStateException if the player can't get through the whole room, in which case nothing is changed
+     * @see GameBot#clearRoom(Player, Room)
+     */
+    public List<Monster> clearRoom(Player player, Room room) throws IllegalArgumentException,IllegalStateException {
+        if(player==null||room==null) {
+            throw new IllegalArgumentException("player and room can't be null");
+        }
+        int first=Math.min(this.stripe(room),this.stripe(player));
+        int second=Math.max(this.stripe(room),this.stripe(player));
+        this.stripes[first].lock();
+        this.stripes[second].lock();
+        try {
+            return this.engine.clearRoom(player,room);
+        }finally {
+            this.stripes[second].unlock();
+            this.stripes[first].unlock();
+        }
+    }
+
+    /**
+     * Play the game on the given number of tasks of the executor, in passes like GameBot#play: in each pass the tasks
+     * take the incomplete rooms, least dangerous first, one at a time, and for each live monster ask the players in turn
+     * to #kill it. Passes go on for as long as each one completes a room. Which player kills which monster depends on how
+     * the tasks' kills interleave, so unlike GameBot#play the result can differ from run to run.
+     * @param executor
+     * @param tasks how many tasks to play each pass on
+     * @return true if all rooms were completed, false if not
+     * @throws IllegalArgumentException if executor is null or tasks < 1
+     * @throws InterruptedException if interrupted while waiting for a pass to finish
+     */
+    public boolean play(ExecutorService executor, int tasks) throws IllegalArgumentException,InterruptedException {
+        if(executor==null) {
+            throw new IllegalArgumentException("executor can't be null");
+        }
+        if(tasks<1) {
+            throw new IllegalArgumentException("tasks must be at least 1");
+        }
+        while(true) {
+            //between passes no task is running, so the rooms can be looked at without their locks
+            List<Room> incomplete=new ArrayList<>();
+            for(Room r:this.rooms) {
+                if(!r.isCompleted()) {
+                    incomplete.add(r);
+                }
+            }
+            if(incomplete.isEmpty()) {
+                return true;
+            }
+            incomplete.sort(Room.DANGER_ORDER);
+            AtomicInteger next=new AtomicInteger();
+            AtomicInteger completed=new AtomicInteger();
+            List<Callable<Void>> pass=new ArrayList<>(tasks);
+            for(int i=0;i<tasks;i++) {
+                pass.add(()->{
+                    for(int r=next.getAndIncrement();r<incomplete.size();r=next.getAndIncrement()) {
+                        if(this.passThroughRoom(incomplete.get(r))) {
+                            completed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            try {
+                for(Future<Void> f:executor.invokeAll(pass)) {
+                    f.get();
+                }
+            }catch(ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            if(completed.get()==0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * ask each player in turn to kill each of the room's live monsters
+     * @param room a room that was incomplete at the start of the pass, and that no other task attempts in it
+     * @return true if the room is now completed
+     */
+    private boolean passThroughRoom(Room room) {
+        List<Monster> live;
+        ReentrantLock lock=this.stripes[this.stripe(room)];
+        lock.lock();
+        try {
+            this.listener.roomAttempted(room);
+            live=new ArrayList<>(room.getLiveMonsters());
+        }finally {
+            lock.unlock();
+        }
+        for(Monster m:live) {
+            for(Player p:this.players) {
+                try {
+                    if(this.kill(p,room,m)) {
+                        break;
+                    }
+                }catch(IllegalArgumentException e) {
+                    //monster doesn't need to be killed
+                    break;
+                }
+            }
+        }
+        lock.lock();
+        try {
+            return room.isCompleted();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return an immutable snapshot of the whole game, taken while holding every lock, so it never shows a kill partway through
+     */
+    public GameState snapshot() {
+        for(ReentrantLock lock:this.stripes) {
+            lock.lock();
+        }
+        try {
+            return GameState.of(this.rooms,this.players);
+        }finally {
+            for(int i=this.stripes.length-1;i>=0;i--) {
+                this.stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Mix the object's identity hash, so that objects made one after the other don't share a stripe
+     * @param o a room or player
+     * @return the index of the object's lock in this.stripes
+     */
+    private int stripe(Object o) {
+        int h=System.identityHashCode(o)*0x9E3779B9;
+        return (h^(h>>>16))&(this.stripes.length-1);
+    }
+}
@@ -0,0 +1,49 @@
+package edu.yu.cs.intro.doomGame;
+
+import java.io.PrintStream;
+
+/**
+ * Traces every game event to a PrintStream, System.out by default
+ */
+public class ConsoleGameEventListener implements GameEventListener {
+    private final PrintStream out;
+
+    public ConsoleGameEventListener() {
+        this(System.out);
+    }
+
+    /**
+     * @param out where to print the events
+     */
+    public ConsoleGameEventListener(PrintStream out) {
+        if(out==null) {
+            throw new IllegalArgumentException("out can't be null");
+        }
+        this.out=out;
+    }
+
+    @Override
+    public void roomAttempted(Room room) {
+        this.out.println("attempting to complete room: "+room.getName());
+    }
+
+    @Override
+    public void killEvaluated(Player player, Monster monster, Room room, boolean canKill) {
+        if(canKill) {
+            this.out.println("player: "+player.getName()+" can kill monster: "+monster.getMonsterType()+" in room: "+room.getName());
+        }
+        else {
+            this.out.println("player: "+player.getName()+" can't kill monster: "+monster.getMonsterType()+" in room: "+room.getName());
+        }
+    }
+
+    @Override
+    public void monsterKilled(Player player, Monster monster, Room room, Weapon weapon, int rounds) {
+        this.out.println("player: "+player.getName()+" killed monster: "+monster.getMonsterType()+" in room: "+room.getName()+" using "+rounds+" rounds of weapon "+weapon+", health is now "+player.getHealth());
+    }
+
+    @Override
+    public void rewardsReaped(Player player, Room room) {
+        this.out.println("player: "+player.getName()+" completed room: "+room.getName()+" and reaped its rewards");
+    }
+}
@@ -0,0 +1,359 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * Finds games that can't be won, without playing them, in time linear in the number of rooms, live monsters and players.
+ * From the MonsterType fields, it works out a lower bound on what each room needs: the strongest weapon any of its
+ * monsters needs, the rounds they take, and the health lost to them if they were killed in the cheapest order, the most
+ * harmful first. It compares those with an upper bound on what can ever be had: the live players' weapons, ammunition
+ * and health, plus the rewards of every room that can be completed at all. A room can't be completed if it needs a
+ * weapon that no player has and no room that can be completed gives, or if its protectors protect each other, which
+ * GameBot can't kill its way through.
+ * Each way a game falls short is a Blocker. A game with none can still be lost, since the bounds ignore which player
+ * has what and the order protectors force, but a game with any can't be won.
+ * @see GameBot#checkFeasibility()
+ */
+public final class FeasibilityCheck {
+    private static final Weapon[] WEAPONS=Weapon.values();
+    private static final MonsterType[] TYPES=MonsterType.values();
+    /**the monster types, most harmful first, which is the order that loses the least health*/
+    private static final MonsterType[] MOST_HARMFUL_FIRST;
+    static {
+        MOST_HARMFUL_FIRST=TYPES.clone();
+        Arrays.sort(MOST_HARMFUL_FIRST,Comparator.comparingInt((MonsterType t)->t.playerHealthLostPerExposure).reversed());
+    }
+    /**rounds of ammunition a player is given with a weapon it didn't have, as in Player#addWeapon*/
+    private static final int ROUNDS_WITH_NEW_WEAPON=5;
+    private final List<Blocker> blockers;
+
+    private FeasibilityCheck(List<Blocker> blockers) {
+        this.blockers=Collections.unmodifiableList(blockers);
+    }
+
+    /**
+     * Check the given rooms and players as they are now
+     * @param rooms
+     * @param players the players; dead ones are left out
+     * @return the result
+     * @throws IllegalArgumentException if either collection is null or holds null
+     */
+    public static FeasibilityCheck of(Collection<Room> rooms, Collection<Player> players) throws IllegalArgumentException {
+        if(rooms==null||players==null) {
+            throw new IllegalArgumentException("rooms and players can't be null");
+        }
+        List<Blocker> blockers=new ArrayList<>();
+        //what the live players have
+        int held=0;
+        long[] ammo=new long[WEAPONS.length];
+        int[] lacking=new int[WEAPONS.length];
+        long health=0;
+        //the most health any one player can have; with no live players, none
+        long bestHealth=0;
+        for(Player p:players) {
+            if(p==null) {
+                throw new IllegalArgumentException("players can't contain null");
+            }
+            if(p.isDead()) {
+                continue;
+            }
+            for(Weapon w:WEAPONS) {
+                if(p.hasWeapon(w)) {
+                    held|=1<<w.ordinal();
+                }
+                else {
+                    lacking[w.ordinal()]++;
+                }
+                ammo[w.ordinal()]+=p.getAmmunitionRoundsForWeapon(w);
+            }
+            health+=p.getHealth();
+            bestHealth=Math.max(bestHealth,p.getHealth());
+        }
+        //what each room needs, and by the weapon they need, the weapons won in the rooms not blocked by their protectors
+        int[] weaponsWonByWeaponNeeded=new int[WEAPONS.length];
+        List<Room> roomList=new ArrayList<>();
+        int[] weaponNeeded=new int[rooms.size()];
+        long[] roundsNeeded=new long[WEAPONS.length];
+        long healthNeeded=0;
+        int r=0;
+        for(Room room:rooms) {
+            if(room==null) {
+                throw new IllegalArgumentException("rooms can't contain null");
+            }
+            RoomNeeds needs=new RoomNeeds(room);
+            weaponNeeded[r++]=needs.weapon;
+            for(MonsterType t:TYPES) {
+                roundsNeeded[t.weaponNeededToKill.ordinal()]+=(long)room.getLiveMonsterCount(t)*t.ammunitionCountNeededToKill;
+            }
+            healthNeeded+=needs.health;
+            if(needs.protectorCycle!=null) {
+                blockers.add(new Blocker(Resource.PROTECTORS,null,room,0,0,"in "+room.getName()+" "+needs.protectorCycle+" protect each other"));
+            }
+            else if(needs.weapon>=0) {
+                for(Weapon w:room.getWeaponsWonUponCompletion()) {
+                    weaponsWonByWeaponNeeded[needs.weapon]|=1<<w.ordinal();
+                }
+            }
+            roomList.add(room);
+        }
+        //a room can be completed once some player can have a weapon strong enough for all its monsters, and then its
+        //weapons can be had too; weapons only get stronger, so this settles after one round per weapon
+        boolean changed=true;
+        while(changed) {
+            changed=false;
+            int strongest=31-Integer.numberOfLeadingZeros(held);
+            for(int w=0;w<=strongest;w++) {
+                if((held|weaponsWonByWeaponNeeded[w])!=held) {
+                    held|=weaponsWonByWeaponNeeded[w];
+                    changed=true;
+                }
+            }
+        }
+        int strongest=31-Integer.numberOfLeadingZeros(held);
+        //the rewards that can be had: those of the rooms with a weapon strong enough and no protectors protecting each other
+        int[] roomsBlockedByWeapon=new int[WEAPONS.length];
+        Room[] firstBlockedByWeapon=new Room[WEAPONS.length];
+        int[] roomsGivingWeapon=new int[WEAPONS.length];
+        Set<Room> blockedByProtectors=Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Blocker b:blockers) {
+            blockedByProtectors.add(b.room);
+        }
+        for(int i=0;i<roomList.size();i++) {
+            Room room=roomList.get(i);
+            if(weaponNeeded[i]>strongest) {
+                if(roomsBlockedByWeapon[weaponNeeded[i]]++==0) {
+                    firstBlockedByWeapon[weaponNeeded[i]]=room;
+                }
+                continue;
+            }
+            //a room with no live monsters is already completed, and its rewards were already given or never will be
+            if(weaponNeeded[i]<0||blockedByProtectors.contains(room)) {
+                continue;
+            }
+            for(Weapon w:room.getWeaponsWonUponCompletion()) {
+                roomsGivingWeapon[w.ordinal()]++;
+            }
+            for(Map.Entry<Weapon,Integer> e:room.getAmmoWonUponCompletion().entrySet()) {
+                ammo[e.getKey().ordinal()]+=e.getValue();
+            }
+            health+=room.getHealthWonUponCompletion();
+            bestHealth+=room.getHealthWonUponCompletion();
+        }
+        for(Weapon w:WEAPONS) {
+            if(roomsBlockedByWeapon[w.ordinal()]>0) {
+                blockers.add(new Blocker(Resource.WEAPON,w,firstBlockedByWeapon[w.ordinal()],roomsBlockedByWeapon[w.ordinal()],0,
+                        "a "+w+" or stronger is needed in "+roomsBlockedByWeapon[w.ordinal()]+" room(s), starting with "+firstBlockedByWeapon[w.ordinal()].getName()+", but no player can have one"));
+            }
+        }
+        //a monster can be killed with any weapon at least as strong as the one it needs, so the rounds needed by the monsters
+        //needing a weapon or stronger must be there for the weapons that strong that can be had
+        long needed=0;
+        long available=0;
+        for(int w=WEAPONS.length-1;w>=0;w--) {
+            needed+=roundsNeeded[w];
+            if((held&1<<w)!=0) {
+                //a fist never runs out
+                long rounds=WEAPONS[w]==Weapon.FIST ? Long.MAX_VALUE/2 : ammo[w]+(long)ROUNDS_WITH_NEW_WEAPON*Math.min(lacking[w],roomsGivingWeapon[w]);
+                available=Math.min(available+rounds,Long.MAX_VALUE/2);
+            }
+            if(needed>available&&w<=strongest) {
+                blockers.add(new Blocker(Resource.AMMO,WEAPONS[w],null,needed,available,
+                        "the monsters needing a "+WEAPONS[w]+" or stronger take "+needed+" rounds, but only "+available+" can be had"));
+            }
+        }
+        //the first kill in a room costs its whole encounter, which must be made by a single player with more health than that,
+        //as in GameBot#canKill; a completed room is never entered again
+        for(Room room:rooms) {
+            if(!room.isCompleted()&&room.getPlayerHealthLostPerEncounter()>=bestHealth) {
+                blockers.add(new Blocker(Resource.HEALTH,null,room,room.getPlayerHealthLostPerEncounter()+1L,bestHealth,
+                        "entering "+room.getName()+" takes more than "+room.getPlayerHealthLostPerEncounter()+" health, but no player can have more than "+bestHealth));
+            }
+        }
+        if(healthNeeded>health) {
+            blockers.add(new Blocker(Resource.HEALTH,null,null,healthNeeded,health,
+                    "completing every room costs at least "+healthNeeded+" health, but only "+health+" can be had"));
+        }
+        return new FeasibilityCheck(blockers);
+    }
+
+    /**
+     * @return false if the game can't be won; true if no reason was found why not, which doesn't mean it will be
+     */
+    public boolean mayBeWinnable() {
+        return this.blockers.isEmpty();
+    }
+
+    /**
+     * @return every way the game falls short, or an empty list if none was found
+     */
+    public List<Blocker> getBlockers() {
+        return this.blockers;
+    }
+
+    @Override
+    public String toString() {
+        if(this.mayBeWinnable()) {
+            return "may be winnable";
+        }
+        StringJoiner joiner=new StringJoiner("; ","can't be won: ","");
+        for(Blocker b:this.blockers) {
+            joiner.add(b.toString());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * What a room needs, worked out from how many live monsters of each type it has, plus the protectors of its live
+     * monsters to look for protectors protecting each other
+     */
+    private static final class RoomNeeds {
+        /**the ordinal of the strongest weapon its monsters need, or -1 if it has none*/
+        private int weapon=-1;
+        /**
+         * the least health lost to kill all its monsters: each kill costs the harm of the monsters still live, so a monster
+         * killed k'th is part of the cost of the first k kills, and killing the most harmful first costs the least
+         */
+        private long health;
+        /**the types in a cycle of protectors, or null if there is none*/
+        private List<MonsterType> protectorCycle;
+
+        private RoomNeeds(Room room) {
+            long live=0;
+            for(MonsterType t:MOST_HARMFUL_FIRST) {
+                long count=room.getLiveMonsterCount(t);
+                if(count>0) {
+                    this.weapon=Math.max(this.weapon,t.weaponNeededToKill.ordinal());
+                }
+                //the monsters of this type are killed (live+1)th to (live+count)th, each part of the cost of every kill up to its own
+                this.health+=t.playerHealthLostPerExposure*(count*live+count*(count+1)/2);
+                live+=count;
+            }
+            //the types each live type is protected by, as bits
+            int[] protectedBy=new int[TYPES.length];
+            for(Monster m:room.getLiveMonsters()) {
+                MonsterType protector=m.getProtectedBy();
+                if(!m.isDead()&&protector!=null&&room.getLiveMonsterCount(protector)>0) {
+                    protectedBy[m.getMonsterType().ordinal()]|=1<<protector.ordinal();
+                }
+            }
+            this.protectorCycle=findCycle(protectedBy);
+        }
+
+        /**
+         * A depth first search over the types, following every protector type of each
+         * @param protectedBy by type, the types its live monsters are protected by, as bits
+         * @return the types in a cycle, in protection order, or null if there is none
+         */
+        private static List<MonsterType> findCycle(int[] protectedBy) {
+            //by type, 0 if not reached yet, 1 while it is on the path, 2 once every type it leads to is searched
+            int[] state=new int[TYPES.length];
+            List<MonsterType> path=new ArrayList<>();
+            for(MonsterType start:TYPES) {
+                List<MonsterType> cycle=findCycle(start.ordinal(),protectedBy,state,path);
+                if(cycle!=null) {
+                    return cycle;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param t the type to search from
+         * @param protectedBy
+         * @param state
+         * @param path the types followed to reach t, each protected by the next
+         * @return a cycle through the types t leads to, or null if there is none
+         */
+        private static List<MonsterType> findCycle(int t, int[] protectedBy, int[] state, List<MonsterType> path) {
+            if(state[t]==2) {
+                return null;
+            }
+            if(state[t]==1) {
+                return new ArrayList<>(path.subList(path.indexOf(TYPES[t]),path.size()));
+            }
+            state[t]=1;
+            path.add(TYPES[t]);
+            for(int protectors=protectedBy[t];protectors!=0;protectors&=protectors-1) {
+                List<MonsterType> cycle=findCycle(Integer.numberOfTrailingZeros(protectors),protectedBy,state,path);
+                if(cycle!=null) {
+                    return cycle;
+                }
+            }
+            path.remove(path.size()-1);
+            state[t]=2;
+            return null;
+        }
+    }
+
+    /**
+     * What a game is short of
+     */
+    public enum Resource {
+        /**a weapon some room needs that no player can have*/
+        WEAPON,
+        /**ammunition for a weapon and those stronger than it*/
+        AMMO,
+        /**health, in total or to enter a room*/
+        HEALTH,
+        /**a room whose monsters protect each other, so none of them can be killed first*/
+        PROTECTORS;
+    }
+
+    /**
+     * One way a game falls short
+     */
+    public static final class Blocker {
+        private final Resource resource;
+        private final Weapon weapon;
+        private final Room room;
+        private final long needed;
+        private final long available;
+        private final String description;
+
+        private Blocker(Resource resource, Weapon weapon, Room room, long needed, long available, String description) {
+            this.resource=resource;
+            this.weapon=weapon;
+            this.room=room;
+            this.needed=needed;
+            this.available=available;
+            this.description=description;
+        }
+
+        public Resource getResource() {
+            return this.resource;
+        }
+
+        /**
+         * @return for WEAPON, the weapon needed; for AMMO, the weakest weapon whose rounds, with those of stronger
+         * weapons, fall short; otherwise null
+         */
+        public Weapon getWeapon() {
+            return this.weapon;
+        }
+
+        /**
+         * @return the room that is blocked, or for WEAPON the first of them; null if the shortfall is over the whole game
+         */
+        public Room getRoom() {
+            return this.room;
+        }
+
+        /**
+         * @return how much of the resource is needed: rounds, health, or for WEAPON the number of rooms that need it
+         */
+        public long getNeeded() {
+            return this.needed;
+        }
+
+        /**
+         * @return how much of the resource can be had at most
+         */
+        public long getAvailable() {
+            return this.available;
+        }
+
+        @Override
+        public String toString() {
+            return this.description;
+        }
+    }
+}
@@ -1,26 +1,119 @@
 package edu.yu.cs.intro.doomGame;
 import java.util.*;
 import java.util.SortedSet;
+import java.util.function.Supplier;
 
 /**
  * Plays through a given game scenario. i.e. tries to kill all the monsters in all the rooms and thus complete the game, using the given set of players
  */
 public class GameBot {
+    /**the most canKill answers a bot remembers at once*/
+    private static final int CAN_KILL_CACHE_SIZE=1<<16;
     SortedSet<Room> rooms;
     SortedSet<Player> players;
     SortedSet<Player> livePlayers;
     Set<Room> roomsCompleted;
+    private GameEventListener listener;
+    private final CanKillCache canKillCache;
+    private GameSolver solver;
+    /**the incomplete rooms in order of their current danger level; made when first needed*/
+    private RoomQueue roomQueue;
+    /**the live players by weapon, ammunition and health; made when first needed, and let go of when the game is done*/
+    private PlayerIndex playerIndex;
+    /**true while a play method or a pass is running*/
+    private boolean playing;
+    /**where passes, canKill questions, kills and rewards are counted; null if they aren't*/
+    private GameMetrics metrics;
     /**
-     * Create a new "GameBot", i.e. a program that automatically "plays the game"
+     * Create a new "GameBot", i.e. a program that automatically "plays the game".
+     * The bot plays with the given sets themselves, so it only has the rooms and players they hold. In a set ordered by
+     * Room's natural order, rooms with the same danger level compare as equal, and all but one of them are silently left
+     * out; the same goes for players with the same greatest weapon, ammunition and health in Player's natural order. To
+     * keep them all, order the sets by Room#CREATION_ORDER and Player#STRENGTH_ORDER, or use #GameBot() and add them.
+     * Since a room's danger level drops as its monsters are killed, a set ordered by it goes out of order during play.
      * @param rooms the set of rooms in this game
      * @param players the set of players the bot can use to try to complete all rooms
      */
     public GameBot(SortedSet<Room> rooms, SortedSet<Player> players) {
         this.rooms = rooms;
         this.players = players;
-        this.livePlayers=new TreeSet<>();
+        this.livePlayers=new TreeSet<>(Player.STRENGTH_ORDER);
         this.livePlayers.addAll(players);
         this.roomsCompleted=new HashSet<>();
+        this.listener=GameEventListener.NONE;
+        this.canKillCache=new CanKillCache(CAN_KILL_CACHE_SIZE);
+    }
+
+    /**
+     * Create a GameBot with no rooms or players yet, to be added with #addRoom and #addPlayer.
+     * Its rooms are ordered by Room#CREATION_ORDER, which killing monsters doesn't change, and its players by
+     * Player#STRENGTH_ORDER, so rooms with the same danger level, and players that compare as equal, are all kept.
+     */
+    public GameBot() {
+        this(new TreeSet<>(Room.CREATION_ORDER),new TreeSet<>(Player.STRENGTH_ORDER));
+    }
+
+    /**
+     * add a room to the game; must not be called while the game is being played
+     * @param room
+     * @throws IllegalArgumentException if room is null
+     */
+    public void addRoom(Room room) {
+        if(room==null) {
+            throw new IllegalArgumentException("room can't be null");
+        }
+        this.rooms.add(room);
+        if(this.roomQueue!=null) {
+            this.roomQueue.add(room);
+        }
+    }
+
+    /**
+     * add a player to the game; must not be called while the game is being played
+     * @param player
+     * @throws IllegalArgumentException if player is null
+     */
+    public void addPlayer(Player player) {
+        if(player==null) {
+            throw new IllegalArgumentException("player can't be null");
+        }
+        this.players.add(player);
+        this.livePlayers.add(player);
+        //the index ranks players by where they are in this.livePlayers, which adding one can change
+        this.closePlayerIndex();
+    }
+
+    /**
+     * Set the listener that is told about every room attempted, kill evaluated, monster killed and reward reaped.
+     * By default the bot uses GameEventListener#NONE, which ignores them all.
+     * @param listener
+     * @throws IllegalArgumentException if listener is null
+     * @see ConsoleGameEventListener
+     */
+    public void setGameEventListener(GameEventListener listener) {
+        if(listener==null) {
+            throw new IllegalArgumentException("listener can't be null");
+        }
+        this.listener=listener;
+    }
+
+    /**
+     * Count this bot's passes, canKill questions, kills and rewards in the given metrics, which other bots may share.
+     * @param metrics the metrics to count in, or null to stop counting
+     */
+    public void setGameMetrics(GameMetrics metrics) {
+        this.metrics=metrics;
+    }
+
+    /**
+     * Have #play search for the order of kills that completes the most rooms with the given solver, instead of passing
+     * through the rooms greedily. The kills it finds are made through #killMonster and #reapCompletionRewards as usual.
+     * If the search runs out of budget before finding a way to complete every room, #play passes through the rooms as
+     * it would without a solver, so it never completes the game less often than without one.
+     * @param solver the solver to use, or null to go back to passing through the rooms
+     */
+    public void setGameSolver(GameSolver solver) {
+        this.solver=solver;
     }
 
     /**
@@ -36,8 +129,47 @@ public class GameBot {
      * and Player all implement Comparable, and the sets we work with are all SortedSets
      *
      * @return true if all rooms were completed, false if not
+     * @see #setGameSolver(GameSolver)
      */
     public boolean play() {
+        return this.whilePlaying(()->this.solver!=null ? this.playWithSolver() : this.playByPasses());
+    }
+
+    /**
+     * Run the given play method, or pass, keeping the player index it makes for the passes it makes. Once the outermost
+     * one returns, the index is closed, so the players are no longer tied to this bot and can be used elsewhere; it is made
+     * again the next time it is needed.
+     * @param game
+     * @return what the play method or pass returns
+     */
+    private <T> T whilePlaying(Supplier<T> game) {
+        if(this.playing) {
+            return game.get();
+        }
+        this.playing=true;
+        try {
+            return game.get();
+        }finally {
+            this.playing=false;
+            this.closePlayerIndex();
+        }
+    }
+
+    /**
+     * Stop the index being told about changes to the players, and drop it
+     */
+    private void closePlayerIndex() {
+        if(this.playerIndex!=null) {
+            this.playerIndex.close();
+            this.playerIndex=null;
+        }
+    }
+
+    /**
+     * call #passThroughRooms for as long as each pass completes more rooms
+     * @return true if all rooms were completed, false if not
+     */
+    private boolean playByPasses() {
         int numberOfIncompleteRoomsBeforeLastPass=0;
         Set<Room>roomsLeft=new HashSet<>();
         roomsLeft.addAll(this.rooms);
@@ -53,65 +185,332 @@ public class GameBot {
     }
 
     /**
-     * Pass through the rooms, killing any monsters that can be killed, and thus attempt to complete the rooms
+     * Make the kills of the best plan the solver finds
+     * @return true if all rooms were completed, false if not
+     */
+    private boolean playWithSolver() {
+        GameSolver.Solution solution=this.solver.solve(new ArrayList<>(this.rooms),new ArrayList<>(this.livePlayers));
+        if(!solution.isExhaustive()&&solution.getRoomsCompleted()<this.rooms.size()) {
+            //the search was cut short, so the passes may still find a way to complete every room that it missed
+            return this.playByPasses();
+        }
+        boolean followedPlan=true;
+        Room lastRoom=null;
+        for(GameSolver.Kill kill:solution.getKills()) {
+            Room r=kill.getRoom();
+            Player p=kill.getPlayer();
+            Monster m=kill.findMonster();
+            //a room's sets of monsters can disagree with what the solver expected, since Monster#compareTo isn't a total order,
+            //so stop following the plan as soon as a kill can't be made safely, and pass through the rooms from there instead
+            int healthLeft=p.getHealth()-r.getPlayerHealthLostPerEncounter();
+            if(r.getLiveMonsters().size()==1&&healthLeft+r.getHealthWonUponCompletion()<0) {
+                healthLeft=-1;
+            }
+            boolean protectorsAlive=false;
+            if(m!=null) {
+                for(Monster protector:getAllProtectorsInRoom(m,r)) {
+                    protectorsAlive|=!protector.isDead();
+                }
+            }
+            //a room left incomplete that way also holds back the rewards, such as a weapon, that later kills were planned with
+            if(m==null||p.isDead()||healthLeft<=0||protectorsAlive||CombatRules.get().getWeaponToUse(p,m.getMonsterType())==null) {
+                followedPlan=false;
+                break;
+            }
+            if(r!=lastRoom) {
+                this.listener.roomAttempted(r);
+                lastRoom=r;
+            }
+            this.listener.killEvaluated(p,m,r,true);
+            this.killMonster(p,r,m);
+            if(r.isCompleted()) {
+                this.reapCompletionRewards(p,r);
+            }
+        }
+        boolean progress=!followedPlan;
+        while(progress&&!this.allRoomsCompleted()) {
+            progress=!this.passThroughRooms().isEmpty();
+        }
+        return this.allRoomsCompleted();
+    }
+
+    private boolean allRoomsCompleted() {
+        for(Room r:this.rooms) {
+            if(!r.isCompleted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same result as #play, but instead of attempting every incomplete room on every pass, only attempts the rooms
+     * where something could have changed since they were last attempted.
+     * A room whose last attempt killed nothing is parked: losing health or ammunition in other rooms can't help any
+     * player kill its monsters, so it is only attempted again once some player reaps a room's rewards that could matter
+     * to it, i.e. any health, or a weapon or ammunition at least as strong as the weakest weapon its live monsters need.
+     * Rooms are still attempted in the same order, and passes end under the same condition, as in #play, so the same
+     * monsters are killed by the same players.
+     * @return true if all rooms were completed, false if not
+     */
+    public boolean playIncrementally() {
+        return this.whilePlaying(this::playByWorklist);
+    }
+
+    /**
+     * @return true if all rooms were completed, false if not
+     * @see #playIncrementally()
+     */
+    private boolean playByWorklist() {
+        RoomQueue queue=this.getRoomQueue();
+        //rooms to attempt, by their id in the queue
+        BitSet worklist=new BitSet(queue.idCount());
+        //parked rooms, by the ordinal of the weakest weapon needed to kill any of their live monsters
+        List<List<Integer>> parked=new ArrayList<>();
+        for(int i=0;i<Weapon.values().length;i++) {
+            parked.add(new ArrayList<>());
+        }
+        for(Room r:this.rooms) {
+            if(!r.isCompleted()) {
+                worklist.set(queue.idOf(r));
+            }
+        }
+        //like #play, a room that was already completed before we started is never counted as completed
+        int roomsLeft=this.rooms.size();
+        int numberOfIncompleteRoomsBeforeLastPass;
+        do {
+            numberOfIncompleteRoomsBeforeLastPass=roomsLeft;
+            Set<Room> roomsCompletedInThisPass=new HashSet<>();
+            //the same order as #passThroughRooms; rooms woken up further along in it are attempted in this pass, the others in the next one
+            List<Room> order=new ArrayList<>();
+            for(Room r=queue.poll();r!=null;r=queue.poll()) {
+                order.add(r);
+                int i=queue.idOf(r);
+                if(!worklist.get(i)) {
+                    continue;
+                }
+                int version=r.getVersion();
+                this.passThroughRoom(r,roomsCompletedInThisPass);
+                if(r.isCompleted()) {
+                    worklist.clear(i);
+                    roomsLeft--;
+                    wakeRoomsHelpedByRewards(r,parked,worklist);
+                }
+                else if(r.getVersion()==version) {
+                    worklist.clear(i);
+                    parked.get(getWeakestWeaponNeeded(r).ordinal()).add(i);
+                }
+            }
+            for(Room r:order) {
+                queue.add(r);
+            }
+        } while(roomsLeft>0&&roomsLeft<numberOfIncompleteRoomsBeforeLastPass);
+        return roomsLeft==0;
+    }
+
+    /**
+     * Like #play, but rather than attempting every incomplete room on every pass until one finds out that another's
+     * rewards made it completable, follows a RoomDependencyGraph: the rooms are attempted one strongly connected component
+     * at a time, with the components a component needs the weapons or rounds of coming before it, and passes are only
+     * made within a component, for as long as each completes one of its rooms. Where rewards unlock rooms in a chain, that
+     * is a single sweep over the rooms rather than a pass per link.
+     * The graph leaves out health, so once every component has been attempted, passes are made over all the rooms still
+     * incomplete, as in #play, for as long as each completes a room.
+     * Rooms are attempted in a different order than in #play, so different players may make the kills.
+     * @return true if all rooms were completed, false if not
+     */
+    public boolean playByDependencies() {
+        return this.whilePlaying(this::playByComponents);
+    }
+
+    /**
+     * @return true if all rooms were completed, false if not
+     * @see #playByDependencies()
+     */
+    private boolean playByComponents() {
+        //like #play, a room that was already completed before we started is never counted as completed
+        int roomsLeft=this.rooms.size();
+        for(List<Room> component:new RoomDependencyGraph(this.rooms,this.livePlayers).components()) {
+            List<Room> incomplete=new ArrayList<>(component);
+            boolean progress=true;
+            while(progress) {
+                incomplete.removeIf(Room::isCompleted);
+                //a kill only changes the danger level of its own room, so as in #passThroughRooms, sort once per pass
+                incomplete.sort(Room.DANGER_ORDER);
+                Set<Room> roomsCompletedInThisPass=new HashSet<>();
+                for(Room r:incomplete) {
+                    this.passThroughRoom(r,roomsCompletedInThisPass);
+                }
+                roomsLeft-=roomsCompletedInThisPass.size();
+                progress=!roomsCompletedInThisPass.isEmpty();
+            }
+        }
+        while(roomsLeft>0) {
+            Set<Room> roomsCompletedInThisPass=this.passThroughRooms();
+            if(roomsCompletedInThisPass.isEmpty()) {
+                break;
+            }
+            roomsLeft-=roomsCompletedInThisPass.size();
+        }
+        return roomsLeft==0;
+    }
+
+    /**
+     * Move back onto the worklist every parked room that the rewards of the given, just completed, room could help
+     * @param completed
+     * @param parked
+     * @param worklist
+     */
+    private static void wakeRoomsHelpedByRewards(Room completed, List<List<Integer>> parked, BitSet worklist) {
+        int strongest=-1;
+        if(completed.getHealthWonUponCompletion()>0) {
+            strongest=parked.size()-1;
+        }
+        for(Weapon w:completed.getWeaponsWonUponCompletion()) {
+            strongest=Math.max(strongest,w.ordinal());
+        }
+        for(Map.Entry<Weapon,Integer> ammo:completed.getAmmoWonUponCompletion().entrySet()) {
+            if(ammo.getValue()>0) {
+                strongest=Math.max(strongest,ammo.getKey().ordinal());
+            }
+        }
+        for(int ordinal=0;ordinal<=strongest;ordinal++) {
+            for(int i:parked.get(ordinal)) {
+                worklist.set(i);
+            }
+            parked.get(ordinal).clear();
+        }
+    }
+
+    /**
+     * @param room
+     * @return the weakest weapon needed to kill any of the live monsters in the room; a weaker weapon is never used there
+     */
+    private static Weapon getWeakestWeaponNeeded(Room room) {
+        Weapon weakest=Weapon.values()[Weapon.values().length-1];
+        for(MonsterType type:MonsterType.values()) {
+            if(room.getLiveMonsterCount(type)>0&&type.weaponNeededToKill.ordinal()<weakest.ordinal()) {
+                weakest=type.weaponNeededToKill;
+            }
+        }
+        return weakest;
+    }
+
+    /**
+     * Pass through the rooms, killing any monsters that can be killed, and thus attempt to complete the rooms.
+     * Incomplete rooms are attempted in order of their danger level as it is at the start of the pass, rather than as it
+     * was when they were added to this.rooms; completed rooms aren't looked at at all.
      * @return the set of rooms that were completed in this pass
      */
     protected Set<Room> passThroughRooms() {
+        return this.whilePlaying(this::pass);
+    }
+
+    /**
+     * @return the set of rooms that were completed in this pass
+     * @see #passThroughRooms()
+     */
+    private Set<Room> pass() {
+        long start=this.metrics==null ? 0 : System.nanoTime();
         Set<Room> roomsJustCompleted=new HashSet<>();
-        //for every room that is not completed,
-        //create the set of incomplete rooms and iterate over it
-        Set<Room> roomsNotYetCompleted=new HashSet<>();
-        for(Room room:this.rooms) {
-            if(!room.isCompleted()) {
-                roomsNotYetCompleted.add(room);
-            }
-        }
-        for(Room r:roomsNotYetCompleted) {
-            System.out.println("passthrou is attempting to complete room: "+r.getName());
-            //for every living monster in that room
-            //make a copy of live monsters so when change live monsters, no concurrent modification exception
-            SortedSet<Monster>copyOfLiveMonsters=new TreeSet<>();
-            copyOfLiveMonsters.addAll(r.getLiveMonsters());
-            for(Monster m: copyOfLiveMonsters) {
-                if(!r.getLiveMonsters().contains(m)) {
-                    continue;
-                }
-                if(!r.isCompleted()) {
-                    System.out.println("attemting to kill monster: "+m.getMonsterType());
-                    //See if any of your players can kill the monster. If so, have the capable player kill it.
-                    for(Player p:this.livePlayers) {
-                        System.out.println("pass through rooms is attemtping to use player: "+p.getName());
-                        if(!m.isDead()) {
-                            boolean canKill=false;
-                            try{
-                                System.out.println("pass through rooms proceeded into canKill");
-                                canKill=this.canKill(p,m,r);
-                            }catch(IllegalArgumentException e) {
-                                System.out.println("monster doesn't need to be killed: "+m);
+        //for every room that is not completed, least dangerous first. Rooms are taken out of the queue one at a time, and
+        //a kill only changes the danger level of the room it is made in, which is out of the queue while it is attempted
+        RoomQueue queue=this.getRoomQueue();
+        List<Room> roomsAttempted=new ArrayList<>();
+        for(Room r=queue.poll();r!=null;r=queue.poll()) {
+            this.passThroughRoom(r,roomsJustCompleted);
+            roomsAttempted.add(r);
+        }
+        //the rooms that are still incomplete go back in the queue, in their place for their new danger level, for the next pass
+        for(Room r:roomsAttempted) {
+            queue.add(r);
+        }
+        if(this.metrics!=null) {
+            this.metrics.passMade(System.nanoTime()-start);
+        }
+        return roomsJustCompleted;
+        //Return the set of completed rooms.
+    }
+
+    /**
+     * The queue is made from this.rooms the first time it is needed, so rooms with the same danger level stay in the
+     * order this.rooms has them in
+     * @return the incomplete rooms in order of their current danger level
+     */
+    private RoomQueue getRoomQueue() {
+        if(this.roomQueue==null) {
+            this.roomQueue=new RoomQueue(this.rooms);
+        }
+        return this.roomQueue;
+    }
+
+    /**
+     * The index is made from this.livePlayers the first time it is needed while playing, so its answers list players in
+     * the order this.livePlayers has them in
+     * @return the live players by weapon, ammunition and health
+     */
+    private PlayerIndex getPlayerIndex() {
+        if(this.playerIndex==null) {
+            this.playerIndex=new PlayerIndex(this.livePlayers);
+        }
+        return this.playerIndex;
+    }
+
+    /**
+     * Kill any monsters in the given room that can be killed.
+     * For each monster, only the players the index says might have the weapon, ammunition and health for it are asked,
+     * in the order of this.livePlayers, so a player that can't possibly kill it isn't reported to the listener as evaluated.
+     * @param r the room to attempt
+     * @param roomsJustCompleted the room is added to this set if it gets completed
+     */
+    private void passThroughRoom(Room r, Set<Room> roomsJustCompleted) {
+        this.listener.roomAttempted(r);
+        //for every living monster in that room
+        //go through a snapshot of the live monsters so when change live monsters, no concurrent modification exception
+        for(Monster m: r.snapshotLiveMonsters()) {
+            if(!r.getLiveMonsters().contains(m)) {
+                continue;
+            }
+            if(!r.isCompleted()) {
+                //See if any of your players can kill the monster. If so, have the capable player kill it.
+                MonsterType type=m.getMonsterType();
+                List<Player> candidates=this.getPlayerIndex().findCandidates(type.weaponNeededToKill,type.ammunitionCountNeededToKill,r.getPlayerHealthLostPerEncounter());
+                for(Player p:candidates) {
+                    if(!m.isDead()) {
+                        boolean canKill=false;
+                        try{
+                            //a pass that makes no progress asks the same questions as the one before it
+                            if(this.metrics==null) {
+                                canKill=this.canKillCache.checkKill(p,m,r)==KillCheck.KILLABLE;
                             }
-                            if(canKill) {
-                                System.out.println("program decided player: "+p.getName()+" can kill monster: " + m.getMonsterType()+" in room: "+r.getName());
-                                this.killMonster(p,r,m);
-                                if(r.isCompleted()) {
-                                    roomsJustCompleted.add(r);
-                                    this.reapCompletionRewards(p,r);
-                                }
+                            else {
+                                long start=System.nanoTime();
+                                KillCheck answer=this.canKillCache.checkKill(p,m,r);
+                                this.metrics.canKillAsked(answer,System.nanoTime()-start);
+                                canKill=answer==KillCheck.KILLABLE;
                             }
-                            else {System.out.println("program decided it can't kill monster: "+m.getMonsterType());}
+                        }catch(IllegalArgumentException e) {
+                            //monster doesn't need to be killed
                         }
-                        else {
-                            break;
+                        this.listener.killEvaluated(p,m,r,canKill);
+                        if(canKill) {
+                            this.killMonster(p,r,m);
+                            if(r.isCompleted()) {
+                                roomsJustCompleted.add(r);
+                                //The player that causes the room to be completed by killing a monster reaps the rewards for completing that room.
+                                this.reapCompletionRewards(p,r);
+                            }
                         }
                     }
+                    else {
+                        break;
+                    }
                 }
-                else {
-                    break;
-                }
             }
-            //The player that causes the room to be completed by killing a monster reaps the rewards for completing that room.
+            else {
+                break;
+            }
         }
-        return roomsJustCompleted;
-        //Return the set of completed rooms.
     }
 
     /**
@@ -127,72 +526,210 @@ public class GameBot {
         for(Weapon w: room.ammoWonUponCompletion.keySet()) {
             player.addAmmunition(w,room.ammoWonUponCompletion.get(w));
         }
-
+        if(this.metrics!=null) {
+            this.metrics.rewardsReaped();
+        }
+        this.listener.rewardsReaped(player,room);
     }
 
     /**
      * Have the given player kill the given monster in the given room.
      * Assume that #canKill was already called to confirm that player's ability to kill the monster
+     * The kill is counted in the bot's metrics, if it has any, whether a pass or a solver's plan chose it.
      * @param player
      * @param room
      * @param monsterToKill
      */
     protected void killMonster(Player player, Room room, Monster monsterToKill) {
-        System.out.println("\n killMonster call for: "+monsterToKill.getMonsterType());
+        if(this.metrics==null) {
+            this.killWithProtectors(player,room,monsterToKill);
+            return;
+        }
+        //every kill moves the room's version on by one
+        int depth=GameMetrics.protectorChainDepth(monsterToKill,room);
+        int version=room.getVersion();
+        this.killWithProtectors(player,room,monsterToKill);
+        this.metrics.killMade(depth,room.getVersion()-version);
+    }
+
+    /**
+     * @param player
+     * @param room
+     * @param monsterToKill
+     * @see #killMonster(Player, Room, Monster)
+     */
+    private void killWithProtectors(Player player, Room room, Monster monsterToKill) {
         //Call getAllProtectorsInRoom to get a sorted set of all the monster's protectors in this room
         SortedSet<Monster> protectors=this.getAllProtectorsInRoom(monsterToKill,room);
-        System.out.println("Kill monster for monster: "+monsterToKill.getMonsterType()+" found the following protectors");
-        for(Monster monsterrrr:protectors) {
-            System.out.println(monsterrrr.getMonsterType());
-        }
         //Player must kill the protectors before it can kill the monster, so kill all the protectors
         //first via a recursive call to killMonster on each one.
         if(monsterToKill.getProtectedBy()==null) {
-            System.out.println("Killing monster: "+monsterToKill.getMonsterType());
-            System.out.println("old player health: "+player.getHealth());
             player.changeHealth(0-room.getPlayerHealthLostPerEncounter());
-            System.out.println("new player health: "+player.getHealth());
-            Weapon weaponToUse=null;
-            Weapon weaponNeeded=monsterToKill.getMonsterType().weaponNeededToKill;
-            for(Weapon w: Weapon.values()) {
-                if(w.ordinal()>=weaponNeeded.ordinal()&&player.hasWeapon(w)) {
-                    weaponToUse=w;
-                    break;
-                }
-            }
-            System.out.println("Killing monster using following weapon: "+weaponToUse);
+            Weapon weaponToUse=CombatRules.get().getWeaponToUse(player,monsterToKill.getMonsterType());
             monsterToKill.attack(weaponToUse,monsterToKill.getMonsterType().ammunitionCountNeededToKill);
             //update player's ammo
             player.changeAmmunitionRoundsForWeapon(weaponToUse,0-monsterToKill.getMonsterType().ammunitionCountNeededToKill);
             room.monsterKilled(monsterToKill);
+            if(this.roomQueue!=null) {
+                this.roomQueue.update(room);
+            }
+            this.listener.monsterKilled(player,monsterToKill,room,weaponToUse,monsterToKill.getMonsterType().ammunitionCountNeededToKill);
         }
         else {
-            System.out.println("recursively called kill on all protectors");
             for(Monster m:protectors) {
-                this.killMonster(player,room,m);
-            }
-            System.out.println("Killing monster: "+monsterToKill.getMonsterType());
-            System.out.println("old player health: "+player.getHealth());
-            player.changeHealth(0-room.getPlayerHealthLostPerEncounter());
-            System.out.println("new player health: "+player.getHealth());
-            Weapon weaponToUse=null;
-            Weapon weaponNeeded=monsterToKill.getMonsterType().weaponNeededToKill;
-            for(Weapon w: Weapon.values()) {
-                if(w.ordinal()>=weaponNeeded.ordinal()&&player.hasWeapon(w)) {
-                    weaponToUse=w;
-                    break;
+                //a protector may already have been killed as the protector of an earlier protector
+                if(!m.isDead()) {
+                    this.killWithProtectors(player,room,m);
                 }
             }
-            System.out.println("Killing monster using following weapon: "+weaponToUse);
+            player.changeHealth(0-room.getPlayerHealthLostPerEncounter());
+            Weapon weaponToUse=CombatRules.get().getWeaponToUse(player,monsterToKill.getMonsterType());
             monsterToKill.attack(weaponToUse,monsterToKill.getMonsterType().ammunitionCountNeededToKill);
             //update player's ammo
             player.changeAmmunitionRoundsForWeapon(weaponToUse,0-monsterToKill.getMonsterType().ammunitionCountNeededToKill);
             room.monsterKilled(monsterToKill);
+            if(this.roomQueue!=null) {
+                this.roomQueue.update(room);
+            }
+            this.listener.monsterKilled(player,monsterToKill,room,weaponToUse,monsterToKill.getMonsterType().ammunitionCountNeededToKill);
         }
         //Reduce the player's health by the amount given by room.getPlayerHealthLostPerEncounter().
         //Attack (and thus kill) the monster with the kind of weapon, and amount of ammunition, needed to kill it.
     }
 
+    /**
+     * Have the given player kill every live monster in the given room, and reap the rewards for completing it.
+     * The result is the same as calling #killMonster for each of the room's live monsters in turn, skipping those already
+     * killed as protectors, and then #reapCompletionRewards, but the work is batched: the order of the kills is planned once,
+     * the health lost and the rounds used of each weapon are added up from the plan, the player's health and ammunition are
+     * changed once each, and the room lets go of all its monsters at once.
+     * Unlike a series of calls to #killMonster, nothing is changed if the player can't get through the whole room.
+     * @param player
+     * @param room
+     * @return the monsters killed, in the order they were killed; empty if the room was already completed
+     * @throws IllegalStateException if the player is dead, has no weapon strong enough for one of the monsters, or would be
+     * dead by the end of the room
+     */
+    protected List<Monster> clearRoom(Player player, Room room) throws IllegalStateException {
+        if(player.isDead()) {
+            throw new IllegalStateException("player is dead");
+        }
+        KillPlan plan=new KillPlan(room);
+        for(Monster m:room.snapshotLiveMonsters()) {
+            if(!m.isDead()&&!plan.isPlanned(m)) {
+                plan.add(m);
+            }
+        }
+        List<Monster> order=plan.order;
+        if(order.isEmpty()) {
+            return order;
+        }
+        //the weapon killMonster would pick for each weapon needed: the weakest one the player has that is at least as strong
+        Weapon[] weapons=Weapon.values();
+        Weapon[] weaponToUse=new Weapon[weapons.length];
+        for(Weapon needed:weapons) {
+            weaponToUse[needed.ordinal()]=CombatRules.get().getWeaponToUse(needed,player.weaponBits());
+        }
+        //every kill costs the health lost to the monsters still live when it is made
+        long[] roundsUsed=new long[weapons.length];
+        long healthLost=0;
+        int encounter=room.getPlayerHealthLostPerEncounter();
+        for(Monster m:order) {
+            MonsterType type=m.getMonsterType();
+            Weapon w=weaponToUse[type.weaponNeededToKill.ordinal()];
+            if(w==null) {
+                throw new IllegalStateException("player has no weapon that can kill a "+type);
+            }
+            roundsUsed[w.ordinal()]+=type.ammunitionCountNeededToKill;
+            healthLost+=encounter;
+            encounter-=type.playerHealthLostPerExposure;
+        }
+        //health only goes down, so a player alive at the end was alive for every kill, and can still be given the rewards
+        if(player.getHealth()-healthLost<0) {
+            throw new IllegalStateException("player would be dead before clearing "+room.getName());
+        }
+        for(Monster m:order) {
+            MonsterType type=m.getMonsterType();
+            m.attack(weaponToUse[type.weaponNeededToKill.ordinal()],type.ammunitionCountNeededToKill);
+        }
+        player.changeHealth((int)-healthLost);
+        for(Weapon w:weapons) {
+            if(roundsUsed[w.ordinal()]>0) {
+                //ammunition never goes below 0, so taking it all at once ends where taking it kill by kill would
+                player.changeAmmunitionRoundsForWeapon(w,(int)-Math.min(roundsUsed[w.ordinal()],Integer.MAX_VALUE));
+            }
+        }
+        room.monstersKilled(order);
+        if(this.roomQueue!=null) {
+            this.roomQueue.update(room);
+        }
+        if(this.metrics!=null) {
+            this.metrics.monstersKilled(order.size());
+        }
+        for(Monster m:order) {
+            MonsterType type=m.getMonsterType();
+            this.listener.monsterKilled(player,m,room,weaponToUse[type.weaponNeededToKill.ordinal()],type.ammunitionCountNeededToKill);
+        }
+        if(room.isCompleted()) {
+            this.reapCompletionRewards(player,room);
+        }
+        return order;
+    }
+
+    /**
+     * The order #killMonster would kill a room's monsters in, worked out without killing them.
+     * It keeps its own sets of each type's live monsters that aren't planned yet, in the order the room keeps them, and
+     * works out protectors from them the way Room#getAllProtectors does, so planning a kill only looks at the monsters
+     * still to be killed. Every live monster starts out in the set for its type, so a live monster is planned once it
+     * is no longer there.
+     */
+    private static final class KillPlan {
+        private final Map<MonsterType,Set<Monster>> unplanned=new EnumMap<>(MonsterType.class);
+        private final List<Monster> order;
+
+        KillPlan(Room room) {
+            this.order=new ArrayList<>(room.getLiveMonsters().size());
+            for(MonsterType type:MonsterType.values()) {
+                this.unplanned.put(type,new LinkedHashSet<>(room.getLiveMonsters(type)));
+            }
+        }
+
+        boolean isPlanned(Monster monster) {
+            return !this.unplanned.get(monster.getMonsterType()).contains(monster);
+        }
+
+        /**
+         * plan to kill the monster, after its protectors that aren't dead or planned already
+         * @param monster
+         */
+        void add(Monster monster) {
+            //the protectors are found through the monsters of the protecting type, so if none of those are left, neither are they
+            if(monster.getProtectedBy()!=null&&!this.unplanned.get(monster.getProtectedBy()).isEmpty()) {
+                SortedSet<Monster> protectors=new TreeSet<>();
+                this.addProtectors(monster.getProtectedBy(),protectors,EnumSet.noneOf(MonsterType.class));
+                for(Monster m:protectors) {
+                    if(!m.isDead()&&!this.isPlanned(m)) {
+                        this.add(m);
+                    }
+                }
+            }
+            this.order.add(monster);
+            this.unplanned.get(monster.getMonsterType()).remove(monster);
+        }
+
+        private void addProtectors(MonsterType type, SortedSet<Monster> closure, Set<MonsterType> typesAdded) {
+            if(!typesAdded.add(type)) {
+                return;
+            }
+            for(Monster m:this.unplanned.get(type)) {
+                closure.add(m);
+                if(m.getProtectedBy()!=null) {
+                    this.addProtectors(m.getProtectedBy(),closure,typesAdded);
+                }
+            }
+        }
+    }
+
     /**
      * @return a set of all the rooms that have been completed
      */
@@ -208,6 +745,22 @@ public class GameBot {
         return Collections.unmodifiableSortedSet(rooms);
     }
 
+    /**
+     * @return an immutable snapshot of the game as it is now: the live monsters in every room, and every live player's
+     * health, weapons and ammunition
+     */
+    public GameState snapshot() {
+        return GameState.of(this.rooms,this.livePlayers);
+    }
+
+    /**
+     * Look for reasons this game can't be won, in time linear in its size, without playing it
+     * @return the result; if it has any blockers, #play() can't complete every room
+     */
+    public FeasibilityCheck checkFeasibility() {
+        return FeasibilityCheck.of(this.rooms,this.livePlayers);
+    }
+
     /**
      * @return a sorted set of all the live players in the game
      */
@@ -221,7 +774,12 @@ public class GameBot {
      * @return a sorted set of all the players that have the given wepoan with the given amount of ammunition for it
      */
     protected SortedSet<Player> getLivePlayersWithWeaponAndAmmunition(Weapon weapon, int ammunition) {
-        SortedSet<Player> playersWithGivenAmmo=new TreeSet<>();
+        SortedSet<Player> playersWithGivenAmmo=new TreeSet<>(Player.STRENGTH_ORDER);
+        //the index is only kept while playing; making one for a single question would cost more than looking at every player
+        if(this.playing) {
+            playersWithGivenAmmo.addAll(this.getPlayerIndex().findWithWeaponAndAmmunition(weapon,ammunition));
+            return playersWithGivenAmmo;
+        }
         for(Player p: this.livePlayers) {
             if(p.hasWeapon(weapon)&&p.getAmmunitionRoundsForWeapon(weapon)==ammunition) {
                 playersWithGivenAmmo.add(p);
@@ -232,46 +790,38 @@ public class GameBot {
 
     /**
      * Get the set of all monsters that would need to be killed first before you could kill this one.
-     * Remember that a protector may itself be protected by other monsters, so you will have to recursively check for protectors
+     * A protector may itself be protected by other monsters, so this includes their protectors too
      * @param monster
      * @param room
-     * @return
+     * @return a new set of the monster's live protectors in the room
+     * @see Room#getAllProtectors(Monster)
      */
     protected static SortedSet<Monster> getAllProtectorsInRoom(Monster monster, Room room) {
-        return getAllProtectorsInRoom(new TreeSet<Monster>(), monster, room); //this is a hint about how to handle canKill as well
+        return room.getAllProtectors(monster);
     }
 
     /**
-     * @param protectors
+     * Can the given player kill the given monster in the given room?
+     *
+     * @param player
      * @param monster
      * @param room
-     * @return protectors in room
+     * @return
+     * @throws IllegalArgumentException if the monster is not located in the room or is dead
      */
-    private static SortedSet<Monster> getAllProtectorsInRoom(SortedSet<Monster> protectors, Monster monster, Room room) {
-        if(monster.getProtectedBy()==null) {
-            return protectors;
-        }
-        else {
-            for(Monster m: room.getLiveMonsters()) {
-                if(m.getMonsterType().equals(monster.getProtectedBy())) {
-                    protectors.add(m);
-                    protectors.addAll(getAllProtectorsInRoom(protectors,m,room));
-                }
-            }
-            return protectors;
-        }
+    protected static boolean canKill(Player player, Monster monster, Room room) throws IllegalArgumentException {
+        return checkKill(player,monster,room)==KillCheck.KILLABLE;
     }
 
     /**
-     * Can the given player kill the given monster in the given room?
-     *
+     * Same as #canKill(Player, Monster, Room), but if the player can't kill the monster, also says why
      * @param player
      * @param monster
      * @param room
-     * @return
+     * @return KILLABLE if the player can kill the monster, otherwise the first thing that stopped it
      * @throws IllegalArgumentException if the monster is not located in the room or is dead
      */
-    protected static boolean canKill(Player player, Monster monster, Room room) throws IllegalArgumentException {
+    static KillCheck checkKill(Player player, Monster monster, Room room) throws IllegalArgumentException {
         //need to deal with throwing the exception
         if(monster.isDead()||!room.getMonsters().contains(monster)) {
             throw new IllegalArgumentException("monster is dead or not in room");
@@ -279,15 +829,26 @@ public class GameBot {
         //Going into the room exposes the player to all the monsters in the room. If the player's health is
         //not > room.getPlayerHealthLostPerEncounter(), you can return immediately.
         if(!(player.getHealth()>room.getPlayerHealthLostPerEncounter())) {
-            System.out.println("player health too low to kill monster so can kill returns false");
-            return false;
+            return KillCheck.HEALTH;
         }
-        int originalHealth=player.getHealth();
         //Call the private canKill method, to determine if this player can kill this monster.
-        Boolean canKill=canKill(player,monster,room, new TreeMap<Weapon,Integer>(), new TreeSet<Monster>());
-        //Before returning from this method, reset the player's health to what it was before you called the private canKill
-        player.setHealth(originalHealth);
-        return canKill;
+        //It works on its own count of the player's health, so the player itself is never changed
+        KillCheck[] why=new KillCheck[1];
+        if(canKill(player,monster,room, new TreeMap<Weapon,Integer>(), new TreeSet<Monster>(), new int[1], new int[]{player.getHealth()},why)) {
+            return KillCheck.KILLABLE;
+        }
+        return why[0];
+    }
+
+    /**
+     * The room keeps a running total of the health lost to its live monsters, and canKill keeps one of the health lost to
+     * the monsters it has marked, which are all live monsters of the room, so this takes constant time
+     * @param room
+     * @param markedExposure the sum of playerHealthLostPerExposure over the marked monsters
+     * @return the health lost per encounter to the room's live monsters, leaving out the marked ones
+     */
+    private static int getHealthLostToUnmarkedMonsters(Room room, int markedExposure) {
+        return room.getPlayerHealthLostPerEncounter()-markedExposure;
     }
 
     /**
@@ -296,96 +857,84 @@ public class GameBot {
      * @param monster
      * @param room
      * @param roundsUsedPerWeapon
+     * @param alreadyMarkedByCanKill
+     * @param markedExposure the sum of playerHealthLostPerExposure over alreadyMarkedByCanKill, in its only element
+     * @param health the player's health as far as this series of recursive calls has got, in its only element
+     * @param why set, in its only element, to the reason the player can't kill the monster if it can't
      * @return
      */
-    private static boolean canKill(Player player, Monster monster, Room room, SortedMap<Weapon, Integer> roundsUsedPerWeapon, Set<Monster> alreadyMarkedByCanKill) throws IllegalArgumentException {
-        System.out.println("canKill has been called on monster: "+monster.getMonsterType());
+    private static boolean canKill(Player player, Monster monster, Room room, SortedMap<Weapon, Integer> roundsUsedPerWeapon, Set<Monster> alreadyMarkedByCanKill, int[] markedExposure, int[] health, KillCheck[] why) throws IllegalArgumentException {
         if (monster.isDead()) {
-            System.out.println("cankill is returning false bc monster was already dead");
             //what do i do here
+            why[0]=KillCheck.PROTECTORS;
             return false;
         }
         //checking if was already killed by a recursive call to protector of it and is now being called by the original method
         if(alreadyMarkedByCanKill.contains(monster)) {
             return true;
         }
-        SortedSet<Monster>monstersStillAlive=new TreeSet<>(room.getLiveMonsters());
         //checking weapon
-        Weapon weaponNeeded=monster.getMonsterType().weaponNeededToKill;
-        Weapon weaponToUse=null;
-        for(Weapon w: Weapon.values()) {
-            if(w.ordinal()>=weaponNeeded.ordinal()&&player.hasWeapon(w)) {
-                weaponToUse=w;
-                break;
-            }
-        }
-        System.out.println("weapon canKill is using to try to kill the monster: "+weaponToUse);
+        Weapon weaponToUse=CombatRules.get().getWeaponToUse(player,monster.getMonsterType());
         if(weaponToUse==null) {
+            why[0]=KillCheck.WEAPON;
             return false;
         }
         if(monster.getProtectedBy()==null) {
-            System.out.println("line 374- hit base case in canKILL");
-            monstersStillAlive.removeAll(alreadyMarkedByCanKill);
             //mark amount of ammo needed and check
             int myRoundsUsed=0;
             if(roundsUsedPerWeapon.get(weaponToUse)!=null) {
                 myRoundsUsed=roundsUsedPerWeapon.get(weaponToUse);
             }
             roundsUsedPerWeapon.put(weaponToUse,myRoundsUsed+monster.getMonsterType().ammunitionCountNeededToKill);
-            System.out.println("rounds needed to kill: "+monster.getMonsterType().ammunitionCountNeededToKill);
-            System.out.println("rounds available to kill: "+player.firePower.get(weaponToUse));
-            System.out.println("rounds system has totalled to use throu all recursive calls: "+roundsUsedPerWeapon.get(weaponToUse));
-            if(roundsUsedPerWeapon.get(weaponToUse)>player.firePower.get(weaponToUse)) {
-                System.out.println("can kill thinks the player doesn't have enough ammo to kill the monster");
+            if(roundsUsedPerWeapon.get(weaponToUse)>player.getAmmunitionRoundsForWeapon(weaponToUse)) {
+                why[0]=KillCheck.AMMO;
                 return false;
             }
-            //deal with health by looping throu live m's and adding health lost and comparing it to player
-            int healthLost=0;
-            for(Monster m: monstersStillAlive) {
-                healthLost+=m.getMonsterType().playerHealthLostPerExposure;
-            }
-            if(player.getHealth()<healthLost) {
+            //deal with health by adding up the health lost to the live monsters not yet marked, and comparing it to the player's
+            int healthLost=getHealthLostToUnmarkedMonsters(room,markedExposure[0]);
+            if(health[0]<healthLost) {
+                why[0]=KillCheck.HEALTH;
                 return false;
             }
             else {
-                player.changeHealth(healthLost);
+                health[0]+=healthLost;
+            }
+            if(alreadyMarkedByCanKill.add(monster)) {
+                markedExposure[0]+=monster.getMonsterType().playerHealthLostPerExposure;
             }
-            alreadyMarkedByCanKill.add(monster);
         }
         else {
             SortedSet<Monster> protectors=getAllProtectorsInRoom(monster,room);
             protectors.removeAll(alreadyMarkedByCanKill);
             for(Monster m: protectors) {
-                Boolean canItKillProtector=canKill(player,m,room,roundsUsedPerWeapon,alreadyMarkedByCanKill);
+                Boolean canItKillProtector=canKill(player,m,room,roundsUsedPerWeapon,alreadyMarkedByCanKill,markedExposure,health,why);
                 if(!canItKillProtector) {
+                    why[0]=KillCheck.PROTECTORS;
                     return false;
                 }
             }
-            monstersStillAlive.removeAll(alreadyMarkedByCanKill);
             //mark amount of ammo needed and check
             int myRoundsUsed=0;
             if(roundsUsedPerWeapon.get(weaponToUse)!=null) {
                 myRoundsUsed=roundsUsedPerWeapon.get(weaponToUse);
             }
             roundsUsedPerWeapon.put(weaponToUse,myRoundsUsed+monster.getMonsterType().ammunitionCountNeededToKill);
-            System.out.println("rounds needed to kill: "+monster.getMonsterType().ammunitionCountNeededToKill);
-            System.out.println("rounds available to kill: "+player.firePower.get(weaponToUse));
-            System.out.println("rounds system has totalled to use throu all recursive calls: "+roundsUsedPerWeapon.get(weaponToUse));
-            if(roundsUsedPerWeapon.get(weaponToUse)>player.firePower.get(weaponToUse)) {
+            if(roundsUsedPerWeapon.get(weaponToUse)>player.getAmmunitionRoundsForWeapon(weaponToUse)) {
+                why[0]=KillCheck.AMMO;
                 return false;
             }
-            //deal with health by looping throu live m's and adding health lost and comparing it to player
-            int healthLost=0;
-            for(Monster m: monstersStillAlive) {
-                healthLost+=m.getMonsterType().playerHealthLostPerExposure;
-            }
-            if(player.getHealth()<healthLost) {
+            //deal with health by adding up the health lost to the live monsters not yet marked, and comparing it to the player's
+            int healthLost=getHealthLostToUnmarkedMonsters(room,markedExposure[0]);
+            if(health[0]<healthLost) {
+                why[0]=KillCheck.HEALTH;
                 return false;
             }
             else {
-                player.changeHealth(healthLost);
+                health[0]+=healthLost;
+            }
+            if(alreadyMarkedByCanKill.add(monster)) {
+                markedExposure[0]+=monster.getMonsterType().playerHealthLostPerExposure;
             }
-            alreadyMarkedByCanKill.add(monster);
         }
         return true;
         //Remove all the monsters already marked / looked at by this series of recursive calls to canKill from the set of liveMonsters
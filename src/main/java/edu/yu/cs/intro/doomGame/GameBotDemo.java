@@ -20,6 +20,7 @@ public class GameBotDemo {
         System.out.println("******************************************************************************");
         System.out.println("******************************************************************************");
         System.out.println("******************************************************************************");
+        bot.setGameEventListener(new ConsoleGameEventListener());
         boolean success = bot.play();
         String message = success ? "was completed successfully" : "could not be completed";
         System.out.println("Game named " + gameName + " " + message);
@@ -0,0 +1,49 @@
+package edu.yu.cs.intro.doomGame;
+
+/**
+ * Receives the events that happen while a GameBot plays through a game.
+ * Every method has an empty default, so an implementation only overrides the events it cares about.
+ * @see GameBot#setGameEventListener(GameEventListener)
+ */
+public interface GameEventListener {
+    /**
+     * the listener a GameBot uses unless it is given another one; ignores every event
+     */
+    GameEventListener NONE = new GameEventListener() {};
+
+    /**
+     * the bot is about to try to kill the live monsters in the given room
+     * @param room
+     */
+    default void roomAttempted(Room room) {
+    }
+
+    /**
+     * the bot checked whether the given player can kill the given monster
+     * @param player
+     * @param monster
+     * @param room the room the monster is in
+     * @param canKill the answer
+     */
+    default void killEvaluated(Player player, Monster monster, Room room, boolean canKill) {
+    }
+
+    /**
+     * the given player killed the given monster
+     * @param player
+     * @param monster
+     * @param room the room the monster was in
+     * @param weapon the weapon the player used
+     * @param rounds the rounds of ammunition fired at the monster
+     */
+    default void monsterKilled(Player player, Monster monster, Room room, Weapon weapon, int rounds) {
+    }
+
+    /**
+     * the given player completed the given room and was given its weapons, ammunition and health
+     * @param player
+     * @param room
+     */
+    default void rewardsReaped(Player player, Room room) {
+    }
+}
@@ -0,0 +1,321 @@
+package edu.yu.cs.intro.doomGame;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * An append-only binary journal of every change a GameBot makes to its game, written as the game is played, so a run
+ * can be looked into afterwards without playing it again with a ConsoleGameEventListener.
+ * Set it as the bot's GameEventListener; every kill and every reaping of rewards is added to it as an action.
+ * #replay makes the actions of a journal on a new copy of the game, without working out again which kills can be made,
+ * and can stop after any number of them. All numbers are big-endian.
+ * <pre>
+ * file    := magic:int version:byte roomCount:int playerCount:int action*
+ * action  := KILL player:int room:int monster:byte weapon:byte rounds:int healthChange:int
+ *          | REWARDS player:int room:int
+ * </pre>
+ * Players and rooms are numbered by their place in the collections the journal was made from. A monster is written as
+ * its type and protector, as in a BinaryScenario file, since monsters of the same type and protector in a room are
+ * interchangeable, and a new copy of the game has different Monster objects. A kill's healthChange is how much the
+ * player's health changed since the action before it that was the player's, which for a kill made by
+ * GameBot#killMonster is the room's health lost per encounter; GameBot#clearRoom takes the health for all its kills
+ * at once, so its first kill has all of it. The rewards of a room are worked out from the room when replayed.
+ * Not thread-safe.
+ */
+public class GameJournal implements GameEventListener, Closeable {
+    private static final int MAGIC=0x4A524E4C; //"JRNL"
+    private static final byte VERSION=1;
+    private static final byte KILL=1;
+    private static final byte REWARDS=2;
+    /**the longest action, a kill*/
+    private static final int MAX_ACTION_BYTES=19;
+    private static final Weapon[] WEAPONS=Weapon.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer=ByteBuffer.allocate(1<<16);
+    private final Map<Room,Integer> roomNumbers=new IdentityHashMap<>();
+    private final Map<Player,Integer> playerNumbers=new IdentityHashMap<>();
+    /**by player number, the player's health after its last action, to work out the next one's health change from*/
+    private final int[] lastHealth;
+    private long actions;
+
+    /**
+     * Start a journal of the given game, as it is now, replacing the file if it exists
+     * @param file
+     * @param rooms the game's rooms; a replay must be given the same rooms in the same order
+     * @param players the game's players; a replay must be given the same players in the same order
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if either collection is null or holds null
+     */
+    public GameJournal(Path file, Collection<Room> rooms, Collection<Player> players) throws IOException,IllegalArgumentException {
+        List<Player> playerList=numberGame(rooms,players,this.roomNumbers,this.playerNumbers);
+        this.lastHealth=new int[playerList.size()];
+        for(int p=0;p<this.lastHealth.length;p++) {
+            this.lastHealth[p]=playerList.get(p).getHealth();
+        }
+        this.channel=FileChannel.open(file,StandardOpenOption.WRITE,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer.putInt(MAGIC).put(VERSION).putInt(this.roomNumbers.size()).putInt(this.playerNumbers.size());
+    }
+
+    /**
+     * Number the rooms and players by their place in the collections, skipping repeats
+     * @return the players, by number
+     * @throws IllegalArgumentException if either collection is null or holds null
+     */
+    private static List<Player> numberGame(Collection<Room> rooms, Collection<Player> players, Map<Room,Integer> roomNumbers, Map<Player,Integer> playerNumbers) {
+        if(rooms==null||players==null) {
+            throw new IllegalArgumentException("rooms and players can't be null");
+        }
+        for(Room r:rooms) {
+            if(r==null) {
+                throw new IllegalArgumentException("rooms can't hold null");
+            }
+            roomNumbers.putIfAbsent(r,roomNumbers.size());
+        }
+        List<Player> playerList=new ArrayList<>(players.size());
+        for(Player p:players) {
+            if(p==null) {
+                throw new IllegalArgumentException("players can't hold null");
+            }
+            if(playerNumbers.putIfAbsent(p,playerNumbers.size())==null) {
+                playerList.add(p);
+            }
+        }
+        return playerList;
+    }
+
+    /**
+     * @return how many actions have been added to the journal
+     */
+    public long getActionCount() {
+        return this.actions;
+    }
+
+    @Override
+    public void monsterKilled(Player player, Monster monster, Room room, Weapon weapon, int rounds) {
+        int p=this.numberOf(player);
+        int r=this.numberOf(room);
+        int healthChange=player.getHealth()-this.lastHealth[p];
+        this.lastHealth[p]=player.getHealth();
+        this.ensure(MAX_ACTION_BYTES).put(KILL).putInt(p).putInt(r).put(BinaryScenario.monsterCode(monster)).put((byte)weapon.ordinal()).putInt(rounds).putInt(healthChange);
+        this.actions++;
+    }
+
+    @Override
+    public void rewardsReaped(Player player, Room room) {
+        int p=this.numberOf(player);
+        int r=this.numberOf(room);
+        this.lastHealth[p]=player.getHealth();
+        this.ensure(9).put(REWARDS).putInt(p).putInt(r);
+        this.actions++;
+    }
+
+    private int numberOf(Player player) {
+        Integer p=this.playerNumbers.get(player);
+        if(p==null) {
+            throw new IllegalArgumentException("player "+player.getName()+" is not part of the journaled game");
+        }
+        return p;
+    }
+
+    private int numberOf(Room room) {
+        Integer r=this.roomNumbers.get(room);
+        if(r==null) {
+            throw new IllegalArgumentException("room "+room.getName()+" is not part of the journaled game");
+        }
+        return r;
+    }
+
+    /**
+     * @param bytes
+     * @return the buffer, with room for at least the given number of bytes
+     * @throws UncheckedIOException if the buffer had to be written out and couldn't be
+     */
+    private ByteBuffer ensure(int bytes) {
+        if(this.buffer.remaining()<bytes) {
+            try {
+                this.writeBuffer();
+            }catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return this.buffer;
+    }
+
+    private void writeBuffer() throws IOException {
+        this.buffer.flip();
+        while(this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Write out every action added so far
+     * @throws IOException if the file can't be written
+     */
+    public void flush() throws IOException {
+        this.writeBuffer();
+    }
+
+    /**
+     * Write out every action added so far, and close the file
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if(!this.channel.isOpen()) {
+            return;
+        }
+        try {
+            this.writeBuffer();
+        }finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Make the first actions of the journal on the given game, which must be a new copy of the game the journal was
+     * made from, as it was when the journal was started: built from the same scenario, with the rooms and players given
+     * in the same order. The changes are made straight to the rooms, monsters and players, as GameBot#killMonster and
+     * GameBot#reapCompletionRewards made them, without working out again which kills can be made.
+     * The same monsters end up dead and the players end up the same, but Room#isCompleted can still differ for a room whose
+     * monsters are all dead: Monster#compareTo isn't a total order, so which killed monsters a room fails to let go of
+     * depends on the Monster objects.
+     * @param file
+     * @param rooms
+     * @param players
+     * @param maxActions how many actions to make at most; Long#MAX_VALUE for all of them
+     * @return how many actions were made, which is less than maxActions only if the journal has fewer
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file isn't a journal of a version this class can read, if it is of a game with
+     * a different number of rooms or players, if maxActions < 0, or if an action doesn't fit the game, e.g. if a room has no
+     * live monster of the type the action killed
+     */
+    public static long replay(Path file, Collection<Room> rooms, Collection<Player> players, long maxActions) throws IOException,IllegalArgumentException {
+        if(maxActions<0) {
+            throw new IllegalArgumentException("maxActions can't be negative");
+        }
+        Map<Room,Integer> roomNumbers=new IdentityHashMap<>();
+        List<Player> playerList=numberGame(rooms,players,roomNumbers,new IdentityHashMap<>());
+        Room[] roomList=new Room[roomNumbers.size()];
+        for(Map.Entry<Room,Integer> e:roomNumbers.entrySet()) {
+            roomList[e.getValue()]=e.getKey();
+        }
+        ByteBuffer in;
+        try(FileChannel channel=FileChannel.open(file,StandardOpenOption.READ)) {
+            in=channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+        }
+        if(in.remaining()<13||in.getInt()!=MAGIC) {
+            throw new IllegalArgumentException(file+" is not a journal file");
+        }
+        if(in.get()!=VERSION) {
+            throw new IllegalArgumentException(file+" has unsupported journal file version "+in.get(4));
+        }
+        int roomCount=in.getInt();
+        int playerCount=in.getInt();
+        if(roomCount!=roomList.length||playerCount!=playerList.size()) {
+            throw new IllegalArgumentException(file+" is a journal of a game with "+roomCount+" rooms and "+playerCount+" players");
+        }
+        Replay replay=new Replay(roomList,playerList);
+        long made=0;
+        try {
+            while(made<maxActions&&in.hasRemaining()) {
+                byte action=in.get();
+                if(action==KILL) {
+                    replay.kill(in.getInt(),in.getInt(),in.get(),in.get(),in.getInt(),in.getInt());
+                }
+                else if(action==REWARDS) {
+                    replay.reapRewards(in.getInt(),in.getInt());
+                }
+                else {
+                    throw new IllegalArgumentException("unknown action "+action+" in "+file);
+                }
+                made++;
+            }
+        }catch(BufferUnderflowException e) {
+            throw new IllegalArgumentException("journal file "+file+" is truncated");
+        }
+        return made;
+    }
+
+    /**
+     * The game a journal is being replayed on
+     */
+    private static final class Replay {
+        private final Room[] rooms;
+        private final List<Player> players;
+        /**by room number, the room's monsters that may still be alive, by monster code; made when the room is first needed*/
+        private final List<Map<Byte,Deque<Monster>>> liveByCode;
+        /**reaps the rewards; it has no rooms or players of its own, so it only touches the ones it is given*/
+        private final GameBot engine=new GameBot();
+
+        Replay(Room[] rooms, List<Player> players) {
+            this.rooms=rooms;
+            this.players=players;
+            this.liveByCode=new ArrayList<>(Collections.nCopies(rooms.length,null));
+        }
+
+        void kill(int p, int r, byte code, byte w, int rounds, int healthChange) {
+            Player player=this.player(p);
+            Room room=this.room(r);
+            if(w<0||w>=WEAPONS.length) {
+                throw new IllegalArgumentException("unknown weapon "+w);
+            }
+            Weapon weapon=WEAPONS[w];
+            Monster monster=this.takeLiveMonster(r,code);
+            player.setHealth(player.getHealth()+healthChange);
+            monster.attack(weapon,rounds);
+            player.changeAmmunitionRoundsForWeapon(weapon,-rounds);
+            room.monsterKilled(monster);
+        }
+
+        void reapRewards(int p, int r) {
+            this.engine.reapCompletionRewards(this.player(p),this.room(r));
+        }
+
+        private Player player(int p) {
+            if(p<0||p>=this.players.size()) {
+                throw new IllegalArgumentException("unknown player "+p);
+            }
+            return this.players.get(p);
+        }
+
+        private Room room(int r) {
+            if(r<0||r>=this.rooms.length) {
+                throw new IllegalArgumentException("unknown room "+r);
+            }
+            return this.rooms[r];
+        }
+
+        /**
+         * @return a live monster of the given code in the room, which the caller is about to kill
+         * @throws IllegalArgumentException if there is none
+         */
+        private Monster takeLiveMonster(int r, byte code) {
+            Map<Byte,Deque<Monster>> byCode=this.liveByCode.get(r);
+            if(byCode==null) {
+                byCode=new HashMap<>();
+                for(Monster m:this.rooms[r].getLiveMonsters()) {
+                    byCode.computeIfAbsent(BinaryScenario.monsterCode(m),c->new ArrayDeque<>()).add(m);
+                }
+                this.liveByCode.set(r,byCode);
+            }
+            Deque<Monster> live=byCode.getOrDefault(code,new ArrayDeque<>());
+            //a monster can be killed other than through the journal, e.g. before it was started
+            while(!live.isEmpty()&&live.peekFirst().isDead()) {
+                live.pollFirst();
+            }
+            if(live.isEmpty()) {
+                throw new IllegalArgumentException("room "+this.rooms[r].getName()+" has no live monster with code "+code);
+            }
+            return live.pollFirst();
+        }
+    }
+}
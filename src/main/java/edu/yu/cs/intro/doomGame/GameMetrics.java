@@ -0,0 +1,330 @@
+package edu.yu.cs.intro.doomGame;
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what GameBots do while they play: passes, canKill questions and why players were turned down, kills, how deep
+ * the chains of protectors were, rewards reaped, and how long passes and canKill questions take.
+ * Every count is a LongAdder, which spreads updates from different threads over different cells and only adds them up
+ * when read, so many bots can share one GameMetrics and keep it on while they play without contending on it.
+ * Reads are not a snapshot: a count read while bots are playing may already include updates the one before it doesn't.
+ * @see GameBot#setGameMetrics(GameMetrics)
+ */
+public class GameMetrics implements GameMetricsMBean {
+    private static final int MONSTER_TYPES=MonsterType.values().length;
+    private final LongAdder passes=new LongAdder();
+    private final LongAdder canKillInvocations=new LongAdder();
+    /**by KillCheck, the answers given; KILLABLE is never read, it just keeps the indexes lined up*/
+    private final LongAdder[] canKillAnswers=adders(KillCheck.values().length);
+    private final LongAdder kills=new LongAdder();
+    /**a chain of protectors can't have more links than there are monster types*/
+    private final LongAdder[] protectorChainDepths=adders(MONSTER_TYPES+1);
+    private final LongAdder rewardsReaped=new LongAdder();
+    private final LatencyHistogram passLatency=new LatencyHistogram();
+    private final LatencyHistogram canKillLatency=new LatencyHistogram();
+    private ObjectName registeredAs;
+
+    /**
+     * Register this with the platform MBean server, as edu.yu.cs.intro.doomGame:type=GameMetrics,name=the given name
+     * @param name
+     * @return the name it was registered under
+     * @throws IllegalArgumentException if name is null or can't be used in an ObjectName
+     * @throws IllegalStateException if this is already registered, or another MBean already has the name
+     */
+    public synchronized ObjectName register(String name) throws IllegalArgumentException,IllegalStateException {
+        if(name==null) {
+            throw new IllegalArgumentException("name can't be null");
+        }
+        if(this.registeredAs!=null) {
+            throw new IllegalStateException("already registered as "+this.registeredAs);
+        }
+        ObjectName objectName;
+        try {
+            objectName=new ObjectName("edu.yu.cs.intro.doomGame:type=GameMetrics,name="+ObjectName.quote(name));
+        }catch(MalformedObjectNameException e) {
+            throw new IllegalArgumentException("can't register as "+name,e);
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,objectName);
+        }catch(InstanceAlreadyExistsException e) {
+            throw new IllegalStateException(objectName+" is already registered",e);
+        }catch(MBeanRegistrationException|NotCompliantMBeanException e) {
+            throw new IllegalStateException("can't register as "+objectName,e);
+        }
+        this.registeredAs=objectName;
+        return objectName;
+    }
+
+    /**
+     * Take this off the platform MBean server; does nothing if it isn't registered
+     */
+    public synchronized void unregister() {
+        if(this.registeredAs==null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.registeredAs);
+        }catch(InstanceNotFoundException e) {
+            //someone else already took it off
+        }catch(MBeanRegistrationException e) {
+            throw new IllegalStateException("can't unregister "+this.registeredAs,e);
+        }
+        this.registeredAs=null;
+    }
+
+    /**
+     * a pass through the rooms was made
+     * @param nanos how long it took
+     */
+    void passMade(long nanos) {
+        this.passes.increment();
+        this.passLatency.record(nanos);
+    }
+
+    /**
+     * the bot asked whether a player can kill a monster
+     * @param answer
+     * @param nanos how long the answer took
+     */
+    void canKillAsked(KillCheck answer, long nanos) {
+        this.canKillInvocations.increment();
+        this.canKillAnswers[answer.ordinal()].increment();
+        this.canKillLatency.record(nanos);
+    }
+
+    /**
+     * the bot chose to kill a monster, and made that kill and those of its protectors
+     * @param protectorChainDepth the depth of the monster's chain of live protectors before the kill
+     * @param killed how many monsters were killed, the monster and its protectors
+     */
+    void killMade(int protectorChainDepth, int killed) {
+        this.protectorChainDepths[Math.min(protectorChainDepth,MONSTER_TYPES)].increment();
+        this.kills.add(killed);
+    }
+
+    /**
+     * monsters were killed without asking canKill about each, as GameBot#clearRoom does
+     * @param killed
+     */
+    void monstersKilled(int killed) {
+        this.kills.add(killed);
+    }
+
+    /**
+     * a player reaped the rewards for completing a room
+     */
+    void rewardsReaped() {
+        this.rewardsReaped.increment();
+    }
+
+    /**
+     * Follows the monster's protectors type by type, as Room#getAllProtectors does, so a protector type is only counted
+     * once along a chain even if protectors protect each other. It only looks at the room's live counts of each type and
+     * protector, never at the monsters, so it takes the same time however many of them there are.
+     * @param monster
+     * @param room
+     * @return the depth of the monster's chain of live protectors: 0 if it has none, 1 if they have none, and so on
+     */
+    static int protectorChainDepth(Monster monster, Room room) {
+        return protectorChainDepth(monster.getProtectedBy(),room,0);
+    }
+
+    /**
+     * @param protector
+     * @param room
+     * @param onChain bit t is set for each protector type t on the chain so far
+     * @return the depth of the chain of live protectors starting with those of the given type
+     */
+    private static int protectorChainDepth(MonsterType protector, Room room, int onChain) {
+        if(protector==null||(onChain&(1<<protector.ordinal()))!=0||room.getLiveMonsterCount(protector)==0) {
+            return 0;
+        }
+        onChain|=1<<protector.ordinal();
+        //the live protectors with no protector of their own make a chain of 1
+        int depth=1;
+        for(MonsterType next:MonsterType.values()) {
+            if(room.getLiveMonsterCount(protector,next)>0) {
+                depth=Math.max(depth,1+protectorChainDepth(next,room,onChain));
+            }
+        }
+        return depth;
+    }
+
+    @Override
+    public long getPasses() {
+        return this.passes.sum();
+    }
+
+    @Override
+    public long getCanKillInvocations() {
+        return this.canKillInvocations.sum();
+    }
+
+    @Override
+    public long getCanKillRejectedForHealth() {
+        return this.canKillAnswers[KillCheck.HEALTH.ordinal()].sum();
+    }
+
+    @Override
+    public long getCanKillRejectedForWeapon() {
+        return this.canKillAnswers[KillCheck.WEAPON.ordinal()].sum();
+    }
+
+    @Override
+    public long getCanKillRejectedForAmmo() {
+        return this.canKillAnswers[KillCheck.AMMO.ordinal()].sum();
+    }
+
+    @Override
+    public long getCanKillRejectedForProtectors() {
+        return this.canKillAnswers[KillCheck.PROTECTORS.ordinal()].sum();
+    }
+
+    @Override
+    public long getKills() {
+        return this.kills.sum();
+    }
+
+    @Override
+    public long[] getProtectorChainDepths() {
+        return sums(this.protectorChainDepths);
+    }
+
+    @Override
+    public long getRewardsReaped() {
+        return this.rewardsReaped.sum();
+    }
+
+    @Override
+    public long getPassLatencyMeanNanos() {
+        return this.passLatency.mean();
+    }
+
+    @Override
+    public long getPassLatencyP50Nanos() {
+        return this.passLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getPassLatencyP99Nanos() {
+        return this.passLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getPassLatencyMaxNanos() {
+        return this.passLatency.max.get();
+    }
+
+    @Override
+    public long getCanKillLatencyMeanNanos() {
+        return this.canKillLatency.mean();
+    }
+
+    @Override
+    public long getCanKillLatencyP50Nanos() {
+        return this.canKillLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getCanKillLatencyP99Nanos() {
+        return this.canKillLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getCanKillLatencyMaxNanos() {
+        return this.canKillLatency.max.get();
+    }
+
+    /**
+     * Updates made while the counts are being reset may be partly kept
+     */
+    @Override
+    public void reset() {
+        this.passes.reset();
+        this.canKillInvocations.reset();
+        for(LongAdder a:this.canKillAnswers) {
+            a.reset();
+        }
+        this.kills.reset();
+        for(LongAdder a:this.protectorChainDepths) {
+            a.reset();
+        }
+        this.rewardsReaped.reset();
+        this.passLatency.reset();
+        this.canKillLatency.reset();
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders=new LongAdder[n];
+        for(int i=0;i<n;i++) {
+            adders[i]=new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums=new long[adders.length];
+        for(int i=0;i<adders.length;i++) {
+            sums[i]=adders[i].sum();
+        }
+        return sums;
+    }
+
+    /**
+     * Counts latencies in power of two buckets: bucket 0 holds 0ns, and bucket i holds 2^(i-1) up to 2^i - 1ns
+     */
+    private static final class LatencyHistogram {
+        private final LongAdder[] buckets=adders(Long.SIZE);
+        private final LongAdder count=new LongAdder();
+        private final LongAdder total=new LongAdder();
+        private final LongAccumulator max=new LongAccumulator(Math::max,0);
+
+        void record(long nanos) {
+            nanos=Math.max(nanos,0);
+            this.buckets[Math.min(Long.SIZE-Long.numberOfLeadingZeros(nanos),Long.SIZE-1)].increment();
+            this.count.increment();
+            this.total.add(nanos);
+            this.max.accumulate(nanos);
+        }
+
+        long mean() {
+            long count=this.count.sum();
+            return count==0 ? 0 : this.total.sum()/count;
+        }
+
+        /**
+         * @param p between 0 and 1
+         * @return the upper bound of the bucket the p'th latency falls in, or 0 if none were recorded
+         */
+        long percentile(double p) {
+            long[] counts=sums(this.buckets);
+            long all=0;
+            for(long c:counts) {
+                all+=c;
+            }
+            if(all==0) {
+                return 0;
+            }
+            long rank=Math.max(1,(long)Math.ceil(p*all));
+            long seen=0;
+            for(int i=0;i<counts.length;i++) {
+                seen+=counts[i];
+                if(seen>=rank) {
+                    return i==0 ? 0 : (1L<<i)-1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        void reset() {
+            for(LongAdder a:this.buckets) {
+                a.reset();
+            }
+            this.count.reset();
+            this.total.reset();
+            this.max.reset();
+        }
+    }
+}
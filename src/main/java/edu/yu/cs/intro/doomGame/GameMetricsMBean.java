@@ -0,0 +1,60 @@
+package edu.yu.cs.intro.doomGame;
+
+/**
+ * What a GameMetrics shows over JMX. Latencies are in nanoseconds; a percentile is the upper bound of the power of two
+ * bucket it falls in, so it is at most twice the true value.
+ * @see GameMetrics#register(String)
+ */
+public interface GameMetricsMBean {
+    /**
+     * @return the passes made through the rooms
+     */
+    long getPasses();
+
+    /**
+     * @return the times the bot asked whether a player can kill a monster, answered from its cache or not
+     */
+    long getCanKillInvocations();
+
+    long getCanKillRejectedForHealth();
+
+    long getCanKillRejectedForWeapon();
+
+    long getCanKillRejectedForAmmo();
+
+    long getCanKillRejectedForProtectors();
+
+    /**
+     * @return the monsters killed, protectors included
+     */
+    long getKills();
+
+    /**
+     * @return by depth, how many of the monsters the bot chose to kill had a chain of live protectors that deep:
+     * 0 for an unprotected monster, 1 if its protectors are unprotected, and so on
+     */
+    long[] getProtectorChainDepths();
+
+    long getRewardsReaped();
+
+    long getPassLatencyMeanNanos();
+
+    long getPassLatencyP50Nanos();
+
+    long getPassLatencyP99Nanos();
+
+    long getPassLatencyMaxNanos();
+
+    long getCanKillLatencyMeanNanos();
+
+    long getCanKillLatencyP50Nanos();
+
+    long getCanKillLatencyP99Nanos();
+
+    long getCanKillLatencyMaxNanos();
+
+    /**
+     * set every count back to 0
+     */
+    void reset();
+}
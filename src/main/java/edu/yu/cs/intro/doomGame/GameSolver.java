@@ -0,0 +1,548 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * Searches for an order of kills that completes as many rooms as possible, rather than passing through the rooms greedily.
+ * The search is a depth first branch-and-bound over which player kills which monster next:
+ * <ul>
+ *     <li>a kill is only considered once none of the monster's protectors are left alive, since killing a protected
+ *     monster is the same as killing its protectors first. Monsters of the same type and protector in a room are interchangeable</li>
+ *     <li>a branch is dropped when even completing every room whose monsters some weapon in play could kill wouldn't
+ *     beat the best plan found so far</li>
+ *     <li>every state reached is remembered, and a state is dropped if an earlier one had the same live monsters and, player
+ *     for player, the same weapons with at least as much health and ammunition. Having more weapons doesn't count as
+ *     better, since a player always fires the weakest weapon that can kill a monster, even if it is out of ammunition</li>
+ *     <li>players with the same health, weapons and ammunition are only tried once per state</li>
+ * </ul>
+ * A kill is only allowed if it follows the rules of GameBot#killMonster and GameBot#canKill: the weapon has the
+ * ammunition, the player has more health than the room's health per encounter, and is still alive after reaping its rewards.
+ * The search stops at its node or time budget, so it stays fast on large maps; it then returns the best plan found so far.
+ * A solver has no state of its own, so one can be shared by many GameBots, even on different threads.
+ * @see GameBot#setGameSolver(GameSolver)
+ */
+public class GameSolver {
+    /**the most kills tried by a search, unless another budget is given*/
+    public static final long DEFAULT_NODE_BUDGET=200_000;
+    /**the longest a search runs, unless another budget is given*/
+    public static final long DEFAULT_TIME_BUDGET_MILLIS=1_000;
+    private static final MonsterType[] MONSTER_TYPES=MonsterType.values();
+    private static final int WEAPON_COUNT=Weapon.values().length;
+    private final long nodeBudget;
+    private final long timeBudgetMillis;
+
+    /**
+     * Create a solver with the default node and time budgets
+     */
+    public GameSolver() {
+        this(DEFAULT_NODE_BUDGET,DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param nodeBudget the most kills a search may try
+     * @param timeBudgetMillis the longest a search may run, in milliseconds
+     * @throws IllegalArgumentException if either budget is < 1
+     */
+    public GameSolver(long nodeBudget, long timeBudgetMillis) {
+        if(nodeBudget<1||timeBudgetMillis<1) {
+            throw new IllegalArgumentException("budgets must be at least 1");
+        }
+        this.nodeBudget=nodeBudget;
+        this.timeBudgetMillis=timeBudgetMillis;
+    }
+
+    /**
+     * @return the most kills a search may try
+     */
+    public long getNodeBudget() {
+        return this.nodeBudget;
+    }
+
+    /**
+     * @return the longest a search may run, in milliseconds
+     */
+    public long getTimeBudgetMillis() {
+        return this.timeBudgetMillis;
+    }
+
+    /**
+     * Search for the order of kills that completes the most rooms. Only reads the rooms and players.
+     * @param rooms
+     * @param players
+     * @return the best plan found
+     */
+    protected Solution solve(List<Room> rooms, List<Player> players) {
+        return new Search(rooms,players).run(this.nodeBudget,System.nanoTime()+this.timeBudgetMillis*1_000_000);
+    }
+
+    /**
+     * One step of a plan: the player kills a live monster of the given type and protector in the room, none of whose
+     * protectors are alive any more
+     */
+    protected static final class Kill {
+        private final Player player;
+        private final Room room;
+        private final MonsterType type;
+        private final MonsterType protectedBy;
+
+        private Kill(Player player, Room room, MonsterType type, MonsterType protectedBy) {
+            this.player=player;
+            this.room=room;
+            this.type=type;
+            this.protectedBy=protectedBy;
+        }
+
+        protected Player getPlayer() {
+            return this.player;
+        }
+
+        protected Room getRoom() {
+            return this.room;
+        }
+
+        /**
+         * @return a live monster of the kill's type and protector in its room, or null if there is none
+         */
+        protected Monster findMonster() {
+            for(Monster m:this.room.getLiveMonsters()) {
+                if(!m.isDead()&&m.getMonsterType()==this.type&&m.getProtectedBy()==this.protectedBy) {
+                    return m;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The best plan a search found
+     */
+    protected static final class Solution {
+        private final List<Kill> kills;
+        private final int roomsCompleted;
+        private final boolean exhaustive;
+        private final long nodes;
+
+        private Solution(List<Kill> kills, int roomsCompleted, boolean exhaustive, long nodes) {
+            this.kills=kills;
+            this.roomsCompleted=roomsCompleted;
+            this.exhaustive=exhaustive;
+            this.nodes=nodes;
+        }
+
+        /**
+         * @return the kills to make, in order
+         */
+        protected List<Kill> getKills() {
+            return this.kills;
+        }
+
+        /**
+         * @return how many rooms are completed once the kills are made, including any that already were
+         */
+        protected int getRoomsCompleted() {
+            return this.roomsCompleted;
+        }
+
+        /**
+         * @return true if the search finished within its budgets, so no plan completes more rooms; false if it was cut short
+         */
+        protected boolean isExhaustive() {
+            return this.exhaustive;
+        }
+
+        /**
+         * @return how many kills the search tried
+         */
+        protected long getNodes() {
+            return this.nodes;
+        }
+    }
+
+    /**
+     * The state of one search. Rooms, players and kinds of monster are numbered, and the state is kept in arrays that each
+     * kill changes in place and that are put back when the search backs out of it.
+     * A kind of monster, or class, is a type and protector within one room; classes are numbered across all rooms.
+     */
+    private static final class Search {
+        /**per player: weapon mask, health, then ammunition for every weapon but the fist*/
+        private static final int PLAYER_STRIDE=1+WEAPON_COUNT;
+        private final Room[] rooms;
+        private final Player[] players;
+        private final int classCount;
+        private final int[] classRoom;
+        private final int[] classType;
+        /**the ordinal of the class's protector type, or -1 if it has none*/
+        private final int[] classProtector;
+        private final int[] liveByClass;
+        /**live monsters of each type in each room, indexed by room*MONSTER_TYPES.length+type*/
+        private final int[] liveByRoomAndType;
+        private final int[] roomLive;
+        /**the health a player loses per encounter in each room*/
+        private final int[] roomLoss;
+        private final int[] rewardHealth;
+        private final int[] rewardWeapons;
+        private final int[] rewardAmmo;
+        private final int[] health;
+        private final int[] weapons;
+        private final int[] ammo;
+        private int roomsCompleted;
+        /**states seen so far: live monsters per class, to the players' sorted states that reached them*/
+        private final Map<IntArrayKey,List<int[]>> seen=new HashMap<>();
+
+        private Search(List<Room> roomList, List<Player> playerList) {
+            this.rooms=roomList.toArray(new Room[0]);
+            this.players=playerList.toArray(new Player[0]);
+            int typeCount=MONSTER_TYPES.length;
+            List<int[]> classes=new ArrayList<>();
+            this.liveByRoomAndType=new int[this.rooms.length*typeCount];
+            this.roomLive=new int[this.rooms.length];
+            this.roomLoss=new int[this.rooms.length];
+            this.rewardHealth=new int[this.rooms.length];
+            this.rewardWeapons=new int[this.rooms.length];
+            this.rewardAmmo=new int[this.rooms.length*WEAPON_COUNT];
+            for(int r=0;r<this.rooms.length;r++) {
+                Room room=this.rooms[r];
+                //live monsters by type and protector, with -1 standing for no protector
+                int[] counts=new int[typeCount*(typeCount+1)];
+                for(Monster m:room.getLiveMonsters()) {
+                    this.roomLive[r]++;
+                    if(m.isDead()) {
+                        //left in the live set by its ordering; it can't be killed again, so the room can't be completed
+                        continue;
+                    }
+                    int protector=m.getProtectedBy()==null ? -1 : m.getProtectedBy().ordinal();
+                    counts[m.getMonsterType().ordinal()*(typeCount+1)+protector+1]++;
+                    this.liveByRoomAndType[r*typeCount+m.getMonsterType().ordinal()]++;
+                }
+                for(int i=0;i<counts.length;i++) {
+                    if(counts[i]>0) {
+                        classes.add(new int[]{r,i/(typeCount+1),i%(typeCount+1)-1,counts[i]});
+                    }
+                }
+                this.roomLoss[r]=room.getPlayerHealthLostPerEncounter();
+                if(this.roomLive[r]==0) {
+                    this.roomsCompleted++;
+                }
+                this.rewardHealth[r]=room.getHealthWonUponCompletion();
+                for(Weapon w:room.getWeaponsWonUponCompletion()) {
+                    this.rewardWeapons[r]|=1<<w.ordinal();
+                }
+                for(Map.Entry<Weapon,Integer> rounds:room.getAmmoWonUponCompletion().entrySet()) {
+                    this.rewardAmmo[r*WEAPON_COUNT+rounds.getKey().ordinal()]+=rounds.getValue();
+                }
+            }
+            this.classCount=classes.size();
+            this.classRoom=new int[this.classCount];
+            this.classType=new int[this.classCount];
+            this.classProtector=new int[this.classCount];
+            this.liveByClass=new int[this.classCount];
+            for(int c=0;c<this.classCount;c++) {
+                int[] kind=classes.get(c);
+                this.classRoom[c]=kind[0];
+                this.classType[c]=kind[1];
+                this.classProtector[c]=kind[2];
+                this.liveByClass[c]=kind[3];
+            }
+            this.health=new int[this.players.length];
+            this.weapons=new int[this.players.length];
+            this.ammo=new int[this.players.length*WEAPON_COUNT];
+            for(int p=0;p<this.players.length;p++) {
+                this.health[p]=this.players[p].getHealth();
+                for(Weapon w:Weapon.values()) {
+                    if(this.players[p].hasWeapon(w)) {
+                        this.weapons[p]|=1<<w.ordinal();
+                    }
+                    if(w!=Weapon.FIST) {
+                        this.ammo[p*WEAPON_COUNT+w.ordinal()]=this.players[p].getAmmunitionRoundsForWeapon(w);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param nodeBudget
+         * @param deadline System#nanoTime() at which to stop
+         * @return the best plan found
+         */
+        private Solution run(long nodeBudget, long deadline) {
+            int maxDepth=0;
+            for(int live:this.roomLive) {
+                maxDepth+=live;
+            }
+            //per depth: the kills to try from the state at that depth, how many have been tried, and the kill that led to it
+            int[][] candidates=new int[maxDepth+1][];
+            int[] candidateCount=new int[maxDepth+1];
+            int[] nextCandidate=new int[maxDepth+1];
+            int[] path=new int[maxDepth+1];
+            int[] savedPlayers=new int[(maxDepth+1)*(PLAYER_STRIDE+1)];
+            int best=this.roomsCompleted;
+            int[] bestPath=new int[0];
+            long nodes=0;
+            boolean exhaustive=true;
+            this.isNew();
+            candidateCount[0]=this.findKills(candidates,0);
+            int depth=0;
+            while(depth>=0&&best<this.rooms.length) {
+                if(nextCandidate[depth]==candidateCount[depth]) {
+                    if(depth>0) {
+                        this.undo(path[depth-1],savedPlayers,depth-1);
+                    }
+                    depth--;
+                    continue;
+                }
+                if(nodes>=nodeBudget||((nodes&0xFF)==0&&System.nanoTime()-deadline>0)) {
+                    exhaustive=false;
+                    break;
+                }
+                int kill=candidates[depth][nextCandidate[depth]++];
+                nodes++;
+                this.apply(kill,savedPlayers,depth);
+                path[depth]=kill;
+                if(this.roomsCompleted>best) {
+                    best=this.roomsCompleted;
+                    bestPath=Arrays.copyOf(path,depth+1);
+                }
+                if(!this.isNew()||this.upperBound()<=best) {
+                    this.undo(kill,savedPlayers,depth);
+                    continue;
+                }
+                depth++;
+                nextCandidate[depth]=0;
+                candidateCount[depth]=this.findKills(candidates,depth);
+            }
+            List<Kill> kills=new ArrayList<>(bestPath.length);
+            for(int kill:bestPath) {
+                int p=kill/this.classCount;
+                int c=kill%this.classCount;
+                MonsterType protector=this.classProtector[c]<0 ? null : MONSTER_TYPES[this.classProtector[c]];
+                kills.add(new Kill(this.players[p],this.rooms[this.classRoom[c]],MONSTER_TYPES[this.classType[c]],protector));
+            }
+            return new Solution(Collections.unmodifiableList(kills),best,exhaustive,nodes);
+        }
+
+        /**
+         * List the legal kills from the current state into candidates[depth], most promising first: kills that complete
+         * a room, then kills in rooms with fewer live monsters, then kills of the monsters that cost the most health to be near
+         * @return how many kills there are
+         */
+        private int findKills(int[][] candidates, int depth) {
+            long[] ranked=new long[8];
+            int count=0;
+            for(int c=0;c<this.classCount;c++) {
+                int r=this.classRoom[c];
+                if(this.liveByClass[c]==0||(this.classProtector[c]>=0&&this.liveByRoomAndType[r*MONSTER_TYPES.length+this.classProtector[c]]>0)) {
+                    continue;
+                }
+                MonsterType type=MONSTER_TYPES[this.classType[c]];
+                long rank=(this.roomLive[r]==1 ? 0 : 1<<30)|Math.min(this.roomLive[r],1<<21)<<8|(0xFF-Math.min(type.playerHealthLostPerExposure,0xFF));
+                for(int p=0;p<this.players.length;p++) {
+                    if(this.canKill(p,c)&&!this.sameAsEarlierPlayer(p)) {
+                        if(count==ranked.length) {
+                            ranked=Arrays.copyOf(ranked,count*2);
+                        }
+                        ranked[count++]=rank<<32|(p*this.classCount+c);
+                    }
+                }
+            }
+            Arrays.sort(ranked,0,count);
+            if(candidates[depth]==null||candidates[depth].length<count) {
+                candidates[depth]=new int[Math.max(count,8)];
+            }
+            for(int i=0;i<count;i++) {
+                candidates[depth][i]=(int)ranked[i];
+            }
+            return count;
+        }
+
+        /**
+         * @return true if the player can kill a monster of the given class now, which must have no live protectors
+         */
+        private boolean canKill(int p, int c) {
+            int r=this.classRoom[c];
+            int healthLeft=this.health[p]-this.roomLoss[r];
+            //as in GameBot#canKill, the player must have more health than the room takes per encounter
+            if(this.health[p]<0||healthLeft<=0) {
+                return false;
+            }
+            MonsterType type=MONSTER_TYPES[this.classType[c]];
+            int weapon=this.weaponToUse(p,type);
+            if(weapon<0||(weapon!=Weapon.FIST.ordinal()&&this.ammo[p*WEAPON_COUNT+weapon]<type.ammunitionCountNeededToKill)) {
+                return false;
+            }
+            //the player who completes the room must still be alive to reap its rewards
+            return this.roomLive[r]>1||healthLeft+this.rewardHealth[r]>=0;
+        }
+
+        /**
+         * @return the ordinal of the weakest weapon the player has that kills the type, as GameBot#killMonster picks it, or -1 if none
+         */
+        private int weaponToUse(int p, MonsterType type) {
+            int usable=this.weapons[p]&(-1<<type.weaponNeededToKill.ordinal());
+            return usable==0 ? -1 : Integer.numberOfTrailingZeros(usable);
+        }
+
+        /**
+         * @return true if an earlier player has exactly the same health, weapons and ammunition, so would do exactly the same
+         */
+        private boolean sameAsEarlierPlayer(int p) {
+            for(int q=0;q<p;q++) {
+                if(this.health[q]==this.health[p]&&this.weapons[q]==this.weapons[p]&&Arrays.equals(this.ammo,q*WEAPON_COUNT,(q+1)*WEAPON_COUNT,this.ammo,p*WEAPON_COUNT,(p+1)*WEAPON_COUNT)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * make the kill, saving the player's state at the given depth so #undo can put it back
+         */
+        private void apply(int kill, int[] savedPlayers, int depth) {
+            int p=kill/this.classCount;
+            int c=kill%this.classCount;
+            int r=this.classRoom[c];
+            int saved=depth*(PLAYER_STRIDE+1);
+            savedPlayers[saved]=this.health[p];
+            savedPlayers[saved+1]=this.weapons[p];
+            System.arraycopy(this.ammo,p*WEAPON_COUNT,savedPlayers,saved+2,WEAPON_COUNT);
+            MonsterType type=MONSTER_TYPES[this.classType[c]];
+            int weapon=this.weaponToUse(p,type);
+            this.health[p]-=this.roomLoss[r];
+            if(weapon!=Weapon.FIST.ordinal()) {
+                this.ammo[p*WEAPON_COUNT+weapon]-=type.ammunitionCountNeededToKill;
+            }
+            this.liveByClass[c]--;
+            this.liveByRoomAndType[r*MONSTER_TYPES.length+type.ordinal()]--;
+            this.roomLive[r]--;
+            this.roomLoss[r]-=type.playerHealthLostPerExposure;
+            if(this.roomLive[r]==0) {
+                //as in GameBot#reapCompletionRewards: a new weapon comes with 5 rounds, and fist ammunition is never counted
+                this.roomsCompleted++;
+                this.health[p]+=this.rewardHealth[r];
+                int newWeapons=this.rewardWeapons[r]&~this.weapons[p];
+                this.weapons[p]|=this.rewardWeapons[r];
+                for(int w=1;w<WEAPON_COUNT;w++) {
+                    this.ammo[p*WEAPON_COUNT+w]+=this.rewardAmmo[r*WEAPON_COUNT+w]+((newWeapons>>w)&1)*5;
+                }
+            }
+        }
+
+        /**
+         * take back a kill made by #apply at the given depth
+         */
+        private void undo(int kill, int[] savedPlayers, int depth) {
+            int p=kill/this.classCount;
+            int c=kill%this.classCount;
+            int r=this.classRoom[c];
+            int saved=depth*(PLAYER_STRIDE+1);
+            this.health[p]=savedPlayers[saved];
+            this.weapons[p]=savedPlayers[saved+1];
+            System.arraycopy(savedPlayers,saved+2,this.ammo,p*WEAPON_COUNT,WEAPON_COUNT);
+            MonsterType type=MONSTER_TYPES[this.classType[c]];
+            if(this.roomLive[r]==0) {
+                this.roomsCompleted--;
+            }
+            this.liveByClass[c]++;
+            this.liveByRoomAndType[r*MONSTER_TYPES.length+type.ordinal()]++;
+            this.roomLive[r]++;
+            this.roomLoss[r]+=type.playerHealthLostPerExposure;
+        }
+
+        /**
+         * @return the most rooms that could be completed from the current state: those already completed, plus those
+         * whose every live monster can be killed by a weapon that some live player has or that some room still gives out
+         */
+        private int upperBound() {
+            int weaponsInPlay=0;
+            for(int p=0;p<this.players.length;p++) {
+                if(this.health[p]>=0) {
+                    weaponsInPlay|=this.weapons[p];
+                }
+            }
+            if(weaponsInPlay==0) {
+                return this.roomsCompleted;
+            }
+            for(int r=0;r<this.rooms.length;r++) {
+                if(this.roomLive[r]>0) {
+                    weaponsInPlay|=this.rewardWeapons[r];
+                }
+            }
+            boolean[] possible=new boolean[this.rooms.length];
+            Arrays.fill(possible,true);
+            for(int c=0;c<this.classCount;c++) {
+                if(this.liveByClass[c]>0&&weaponsInPlay>>>MONSTER_TYPES[this.classType[c]].weaponNeededToKill.ordinal()==0) {
+                    possible[this.classRoom[c]]=false;
+                }
+            }
+            int bound=this.roomsCompleted;
+            for(int r=0;r<this.rooms.length;r++) {
+                if(this.roomLive[r]>0&&possible[r]) {
+                    bound++;
+                }
+            }
+            return bound;
+        }
+
+        /**
+         * Remember the current state
+         * @return false if it, or a state at least as good, was seen before
+         */
+        private boolean isNew() {
+            int[][] sorted=new int[this.players.length][];
+            for(int p=0;p<this.players.length;p++) {
+                int[] state=new int[PLAYER_STRIDE];
+                state[0]=this.weapons[p];
+                state[1]=this.health[p];
+                System.arraycopy(this.ammo,p*WEAPON_COUNT+1,state,2,WEAPON_COUNT-1);
+                sorted[p]=state;
+            }
+            Arrays.sort(sorted,Arrays::compare);
+            int[] playerState=new int[this.players.length*PLAYER_STRIDE];
+            for(int p=0;p<sorted.length;p++) {
+                System.arraycopy(sorted[p],0,playerState,p*PLAYER_STRIDE,PLAYER_STRIDE);
+            }
+            List<int[]> reached=this.seen.computeIfAbsent(new IntArrayKey(this.liveByClass.clone()),k->new ArrayList<>());
+            for(int[] earlier:reached) {
+                if(dominates(earlier,playerState)) {
+                    return false;
+                }
+            }
+            reached.removeIf(earlier->dominates(playerState,earlier));
+            reached.add(playerState);
+            return true;
+        }
+
+        /**
+         * @return true if, player for player in sorted order, a has the same weapons as b and at least as much health and ammunition
+         */
+        private static boolean dominates(int[] a, int[] b) {
+            for(int i=0;i<a.length;i++) {
+                if(i%PLAYER_STRIDE==0 ? a[i]!=b[i] : a[i]<b[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * An int array compared by its contents, for use as a map key
+     */
+    private static final class IntArrayKey {
+        private final int[] values;
+        private final int hash;
+
+        private IntArrayKey(int[] values) {
+            this.values=values;
+            this.hash=Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntArrayKey&&Arrays.equals(this.values,((IntArrayKey)o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
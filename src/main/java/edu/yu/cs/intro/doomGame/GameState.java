@@ -0,0 +1,521 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * An immutable snapshot of a game: which monsters in each room are alive, and each player's health, weapons and ammunition.
+ * Making a kill returns a new state and leaves this one as it is. The new state shares all but the changed room and player
+ * with the old one, so a kill takes time proportional to the size of that room rather than of the game, and states can be
+ * branched from one another, and read from many threads, without copying the game.
+ * The rooms, players and monsters a snapshot was taken of only name what a state is about; a state never reads or changes
+ * them after the snapshot is taken. A monster is alive in the snapshot if Monster#isDead() says so, whether or not it is
+ * still in its Room#getLiveMonsters(), which can keep a killed monster since Monster#compareTo isn't a total order.
+ * @see GameBot#snapshot()
+ */
+public final class GameState {
+    private final Index index;
+    private final PersistentArray<RoomState> rooms;
+    private final PersistentArray<PlayerState> players;
+    private final int roomsCompleted;
+
+    private GameState(Index index, PersistentArray<RoomState> rooms, PersistentArray<PlayerState> players, int roomsCompleted) {
+        this.index=index;
+        this.rooms=rooms;
+        this.players=players;
+        this.roomsCompleted=roomsCompleted;
+    }
+
+    /**
+     * Take a snapshot of the given rooms and players as they are now
+     * @param rooms
+     * @param players
+     * @return the state of the game
+     * @throws IllegalArgumentException if either collection is null or holds null
+     */
+    public static GameState of(Collection<Room> rooms, Collection<Player> players) {
+        if(rooms==null||players==null) {
+            throw new IllegalArgumentException("rooms and players can't be null");
+        }
+        Index index=new Index(rooms,players);
+        List<RoomState> roomStates=new ArrayList<>(index.rooms.length);
+        int completed=0;
+        for(RoomIndex room:index.rooms) {
+            RoomState state=RoomState.of(room);
+            roomStates.add(state);
+            if(state.live==0) {
+                completed++;
+            }
+        }
+        List<PlayerState> playerStates=new ArrayList<>(index.players.length);
+        for(Player p:index.players) {
+            playerStates.add(PlayerState.of(p));
+        }
+        return new GameState(index,PersistentArray.of(roomStates),PersistentArray.of(playerStates),completed);
+    }
+
+    /**
+     * Have the given player kill the given monster in the given room, as GameBot#killMonster would: its protectors are
+     * killed first, every kill costs the player the room's health per encounter, and each is made with the weakest weapon
+     * the player has that can kill the monster, using up that weapon's ammunition (but never below 0).
+     * If that completes the room, the player reaps its rewards, as in GameBot#reapCompletionRewards.
+     * @param player
+     * @param room
+     * @param monster
+     * @return the state after the kill
+     * @throws IllegalArgumentException if the player or room isn't part of the game, if the monster is dead or not in the
+     * room, if the player has no weapon that can kill it or one of its protectors, or if it is among its own protectors
+     * @throws IllegalStateException if the player is dead, or dies before the kill is done
+     */
+    public GameState kill(Player player, Room room, Monster monster) throws IllegalArgumentException,IllegalStateException {
+        int p=this.index.indexOf(player);
+        int r=this.index.indexOf(room);
+        RoomIndex roomIndex=this.index.rooms[r];
+        RoomState roomState=this.rooms.get(r);
+        int m=this.liveMonsterIndex(roomIndex,roomState,monster);
+        Move move=new Move(roomIndex,roomState,this.players.get(p),false);
+        move.kill(m);
+        int completed=this.roomsCompleted;
+        if(move.live==0) {
+            move.reapRewards();
+            completed++;
+        }
+        return new GameState(this.index,this.rooms.set(r,move.roomState()),this.players.set(p,move.playerState()),completed);
+    }
+
+    /**
+     * Can the given player kill the given monster, and all its protectors, in the given room?
+     * Unlike GameBot#canKill, this follows every kill #kill would make: the player must have the ammunition for each one,
+     * and still be alive after each encounter and after reaping the room's rewards, if the kill completes it.
+     * Doesn't change anything, so it is safe to call from many threads at once.
+     * @param player
+     * @param monster
+     * @param room
+     * @return true if the player can make the kill
+     * @throws IllegalArgumentException if the player or room isn't part of the game, or if the monster is dead or not in the room
+     */
+    public boolean canKill(Player player, Monster monster, Room room) throws IllegalArgumentException {
+        int p=this.index.indexOf(player);
+        int r=this.index.indexOf(room);
+        RoomIndex roomIndex=this.index.rooms[r];
+        RoomState roomState=this.rooms.get(r);
+        int m=this.liveMonsterIndex(roomIndex,roomState,monster);
+        Move move=new Move(roomIndex,roomState,this.players.get(p),true);
+        return move.kill(m)&&(move.live>0||move.reapRewards());
+    }
+
+    /**
+     * @return the monster's index in the room
+     * @throws IllegalArgumentException if the monster is dead or not in the room
+     */
+    private int liveMonsterIndex(RoomIndex room, RoomState state, Monster monster) {
+        Integer m=room.monsterIndex.get(monster);
+        if(m==null||!state.isAlive(m)) {
+            throw new IllegalArgumentException("monster is dead or not in room");
+        }
+        return m;
+    }
+
+    /**
+     * @param monster
+     * @param room
+     * @return true if the monster is in the room and alive
+     * @throws IllegalArgumentException if the room isn't part of the game
+     */
+    public boolean isAlive(Monster monster, Room room) {
+        int r=this.index.indexOf(room);
+        Integer m=this.index.rooms[r].monsterIndex.get(monster);
+        return m!=null&&this.rooms.get(r).isAlive(m);
+    }
+
+    /**
+     * @param room
+     * @return the live monsters in the room, grouped by type
+     * @throws IllegalArgumentException if the room isn't part of the game
+     */
+    public List<Monster> getLiveMonsters(Room room) {
+        int r=this.index.indexOf(room);
+        RoomIndex roomIndex=this.index.rooms[r];
+        RoomState state=this.rooms.get(r);
+        List<Monster> live=new ArrayList<>(state.live);
+        for(int m=0;m<roomIndex.monsters.length;m++) {
+            if(state.isAlive(m)) {
+                live.add(roomIndex.monsters[m]);
+            }
+        }
+        return Collections.unmodifiableList(live);
+    }
+
+    /**
+     * @param room
+     * @return true if every monster in the room is dead
+     * @throws IllegalArgumentException if the room isn't part of the game
+     */
+    public boolean isCompleted(Room room) {
+        return this.rooms.get(this.index.indexOf(room)).live==0;
+    }
+
+    /**
+     * @param room
+     * @return the sum of the playerHealthLostPerExposure of the room's live monsters
+     * @throws IllegalArgumentException if the room isn't part of the game
+     * @see Room#getPlayerHealthLostPerEncounter()
+     */
+    public int getPlayerHealthLostPerEncounter(Room room) {
+        return this.rooms.get(this.index.indexOf(room)).healthLost;
+    }
+
+    /**
+     * @return how many of the game's rooms are completed
+     */
+    public int getRoomsCompleted() {
+        return this.roomsCompleted;
+    }
+
+    /**
+     * @return how many rooms the game has
+     */
+    public int getRoomCount() {
+        return this.index.rooms.length;
+    }
+
+    /**
+     * @param player
+     * @return the player's health
+     * @throws IllegalArgumentException if the player isn't part of the game
+     */
+    public int getHealth(Player player) {
+        return this.players.get(this.index.indexOf(player)).health;
+    }
+
+    /**
+     * @param player
+     * @return true if the player is dead
+     * @throws IllegalArgumentException if the player isn't part of the game
+     * @see Player#isDead()
+     */
+    public boolean isDead(Player player) {
+        return this.getHealth(player)<0;
+    }
+
+    /**
+     * @param player
+     * @param weapon
+     * @return true if the player has the weapon
+     * @throws IllegalArgumentException if the player isn't part of the game
+     */
+    public boolean hasWeapon(Player player, Weapon weapon) {
+        return (this.players.get(this.index.indexOf(player)).weapons&(1<<weapon.ordinal()))!=0;
+    }
+
+    /**
+     * @param player
+     * @param weapon
+     * @return the player's ammunition for the weapon; Integer#MAX_VALUE for the fist, as in Player
+     * @throws IllegalArgumentException if the player isn't part of the game
+     */
+    public int getAmmunitionRoundsForWeapon(Player player, Weapon weapon) {
+        if(weapon==Weapon.FIST) {
+            return Integer.MAX_VALUE;
+        }
+        return this.players.get(this.index.indexOf(player)).ammo[weapon.ordinal()];
+    }
+
+    /**
+     * What a snapshot is about, shared by every state branched from it: the rooms and players by number, and each
+     * room's monsters
+     */
+    private static final class Index {
+        private final RoomIndex[] rooms;
+        private final Player[] players;
+        private final Map<Room,Integer> roomNumbers=new IdentityHashMap<>();
+        private final Map<Player,Integer> playerNumbers=new IdentityHashMap<>();
+
+        private Index(Collection<Room> rooms, Collection<Player> players) {
+            List<RoomIndex> roomList=new ArrayList<>(rooms.size());
+            for(Room r:rooms) {
+                if(r==null) {
+                    throw new IllegalArgumentException("rooms can't hold null");
+                }
+                if(this.roomNumbers.putIfAbsent(r,roomList.size())==null) {
+                    roomList.add(new RoomIndex(r));
+                }
+            }
+            List<Player> playerList=new ArrayList<>(players.size());
+            for(Player p:players) {
+                if(p==null) {
+                    throw new IllegalArgumentException("players can't hold null");
+                }
+                if(this.playerNumbers.putIfAbsent(p,playerList.size())==null) {
+                    playerList.add(p);
+                }
+            }
+            this.rooms=roomList.toArray(new RoomIndex[0]);
+            this.players=playerList.toArray(new Player[0]);
+        }
+
+        private int indexOf(Room room) {
+            Integer r=this.roomNumbers.get(room);
+            if(r==null) {
+                throw new IllegalArgumentException("room "+(room==null ? null : room.getName())+" is not part of this game");
+            }
+            return r;
+        }
+
+        private int indexOf(Player player) {
+            Integer p=this.playerNumbers.get(player);
+            if(p==null) {
+                throw new IllegalArgumentException("player "+(player==null ? null : player.getName())+" is not part of this game");
+            }
+            return p;
+        }
+    }
+
+    /**
+     * A room's monsters, numbered by type and then in the room's order, so that the monsters of each type are numbered
+     * next to each other
+     */
+    private static final class RoomIndex {
+        private final Room room;
+        private final Monster[] monsters;
+        /**the monsters of type t are numbered from typeStart[t] up to typeStart[t+1]*/
+        private final int[] typeStart;
+        /**not an IdentityHashMap: the monsters of a CompactRoom are views, equal to every other view of the same monster*/
+        private final Map<Monster,Integer> monsterIndex=new HashMap<>();
+
+        private RoomIndex(Room room) {
+            this.room=room;
+            MonsterType[] types=MonsterType.values();
+            List<Monster> byType=new ArrayList<>(room.getMonsters().size());
+            this.typeStart=new int[types.length+1];
+            for(MonsterType type:types) {
+                this.typeStart[type.ordinal()]=byType.size();
+                for(Monster m:room.getMonsters()) {
+                    if(m.getMonsterType()==type) {
+                        byType.add(m);
+                    }
+                }
+            }
+            this.typeStart[types.length]=byType.size();
+            this.monsters=byType.toArray(new Monster[0]);
+            for(int m=0;m<this.monsters.length;m++) {
+                this.monsterIndex.put(this.monsters[m],m);
+            }
+        }
+
+        /**
+         * Like Room#getAllProtectors: every live monster of the monster's protector type, each followed by its own protectors
+         * @param alive
+         * @param monster
+         * @return the numbers of the monster's live protectors, in order
+         */
+        private int[] protectors(long[] alive, Monster monster) {
+            long[] closure=new long[alive.length];
+            this.addProtectors(monster.getProtectedBy().ordinal(),alive,closure,new boolean[this.typeStart.length-1]);
+            int count=0;
+            for(long bits:closure) {
+                count+=Long.bitCount(bits);
+            }
+            int[] protectors=new int[count];
+            int i=0;
+            for(int word=0;word<closure.length;word++) {
+                for(long bits=closure[word];bits!=0;bits&=bits-1) {
+                    protectors[i++]=word*64+Long.numberOfTrailingZeros(bits);
+                }
+            }
+            return protectors;
+        }
+
+        private void addProtectors(int type, long[] alive, long[] closure, boolean[] typesAdded) {
+            if(typesAdded[type]) {
+                return;
+            }
+            typesAdded[type]=true;
+            for(int m=this.typeStart[type];m<this.typeStart[type+1];m++) {
+                if((alive[m>>>6]&(1L<<m))!=0) {
+                    closure[m>>>6]|=1L<<m;
+                    MonsterType protector=this.monsters[m].getProtectedBy();
+                    if(protector!=null) {
+                        this.addProtectors(protector.ordinal(),alive,closure,typesAdded);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Which of a room's monsters are alive, by number, and what they cost a player per encounter
+     */
+    private static final class RoomState {
+        private final long[] alive;
+        private final int live;
+        private final int healthLost;
+
+        private RoomState(long[] alive, int live, int healthLost) {
+            this.alive=alive;
+            this.live=live;
+            this.healthLost=healthLost;
+        }
+
+        private static RoomState of(RoomIndex room) {
+            long[] alive=new long[(room.monsters.length+63)/64];
+            int live=0;
+            int healthLost=0;
+            for(int m=0;m<room.monsters.length;m++) {
+                if(!room.monsters[m].isDead()) {
+                    alive[m>>>6]|=1L<<m;
+                    live++;
+                    healthLost+=room.monsters[m].getMonsterType().playerHealthLostPerExposure;
+                }
+            }
+            return new RoomState(alive,live,healthLost);
+        }
+
+        private boolean isAlive(int m) {
+            return (this.alive[m>>>6]&(1L<<m))!=0;
+        }
+    }
+
+    /**
+     * A player's health, weapons, as a mask of Weapon#ordinal() bits, and ammunition by Weapon#ordinal(), not counting the fist
+     */
+    private static final class PlayerState {
+        private final int health;
+        private final int weapons;
+        private final int[] ammo;
+
+        private PlayerState(int health, int weapons, int[] ammo) {
+            this.health=health;
+            this.weapons=weapons;
+            this.ammo=ammo;
+        }
+
+        private static PlayerState of(Player player) {
+            int weapons=0;
+            int[] ammo=new int[Weapon.values().length];
+            for(Weapon w:Weapon.values()) {
+                if(player.hasWeapon(w)) {
+                    weapons|=1<<w.ordinal();
+                }
+                if(w!=Weapon.FIST) {
+                    ammo[w.ordinal()]=player.getAmmunitionRoundsForWeapon(w);
+                }
+            }
+            return new PlayerState(player.getHealth(),weapons,ammo);
+        }
+    }
+
+    /**
+     * Working copies of the one room and player a kill changes, from which the new state's are made
+     */
+    private static final class Move {
+        private final RoomIndex room;
+        private final long[] alive;
+        private int live;
+        private int healthLost;
+        private int health;
+        private int weapons;
+        private final int[] ammo;
+        /**if true, breaking a rule makes the move fail, rather than go ahead or throw as GameBot#killMonster would*/
+        private final boolean strict;
+
+        private Move(RoomIndex room, RoomState roomState, PlayerState playerState, boolean strict) {
+            this.room=room;
+            this.alive=roomState.alive.clone();
+            this.live=roomState.live;
+            this.healthLost=roomState.healthLost;
+            this.health=playerState.health;
+            this.weapons=playerState.weapons;
+            this.ammo=playerState.ammo.clone();
+            this.strict=strict;
+        }
+
+        /**
+         * kill the monster with the given number, after its live protectors
+         * @return false if the move is strict and the kill breaks a rule
+         */
+        private boolean kill(int target) {
+            Monster monster=this.room.monsters[target];
+            if(monster.getProtectedBy()!=null) {
+                for(int protector:this.room.protectors(this.alive,monster)) {
+                    if(protector==target) {
+                        return this.fail(new IllegalArgumentException("monster is among its own protectors, so can't be killed"));
+                    }
+                    if((this.alive[protector>>>6]&(1L<<protector))!=0&&!this.kill(protector)) {
+                        return false;
+                    }
+                }
+            }
+            if(this.health<0) {
+                return this.fail(new IllegalStateException("player is dead"));
+            }
+            this.health-=this.healthLost;
+            if(this.strict&&this.health<0) {
+                return false;
+            }
+            MonsterType type=monster.getMonsterType();
+            int usable=this.weapons&(-1<<type.weaponNeededToKill.ordinal());
+            if(usable==0) {
+                return this.fail(new IllegalArgumentException("wrong weapon or too few rounds"));
+            }
+            int weapon=Integer.numberOfTrailingZeros(usable);
+            if(weapon!=Weapon.FIST.ordinal()) {
+                if(this.strict&&this.ammo[weapon]<type.ammunitionCountNeededToKill) {
+                    return false;
+                }
+                this.ammo[weapon]=Math.max(0,this.ammo[weapon]-type.ammunitionCountNeededToKill);
+            }
+            this.alive[target>>>6]&=~(1L<<target);
+            this.live--;
+            this.healthLost-=type.playerHealthLostPerExposure;
+            return true;
+        }
+
+        /**
+         * give the player the room's rewards
+         * @return false if the move is strict and the player is dead
+         */
+        private boolean reapRewards() {
+            if(this.health<0) {
+                return this.fail(new IllegalStateException("player is dead"));
+            }
+            Room r=this.room.room;
+            this.health+=r.getHealthWonUponCompletion();
+            if(this.health<0&&!(r.getWeaponsWonUponCompletion().isEmpty()&&r.getAmmoWonUponCompletion().isEmpty())) {
+                return this.fail(new IllegalStateException("player is dead"));
+            }
+            for(Weapon w:r.getWeaponsWonUponCompletion()) {
+                if((this.weapons&(1<<w.ordinal()))==0) {
+                    this.weapons|=1<<w.ordinal();
+                    this.ammo[w.ordinal()]+=5;
+                }
+            }
+            for(Map.Entry<Weapon,Integer> rounds:r.getAmmoWonUponCompletion().entrySet()) {
+                if(rounds.getValue()<0) {
+                    return this.fail(new IllegalArgumentException("rounds must be greater than 0"));
+                }
+                if(rounds.getKey()!=Weapon.FIST) {
+                    this.ammo[rounds.getKey().ordinal()]+=rounds.getValue();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return false if the move is strict
+         * @throws RuntimeException the given exception, if the move isn't strict
+         */
+        private boolean fail(RuntimeException e) {
+            if(this.strict) {
+                return false;
+            }
+            throw e;
+        }
+
+        private RoomState roomState() {
+            return new RoomState(this.alive,this.live,this.healthLost);
+        }
+
+        private PlayerState playerState() {
+            return new PlayerState(this.health,this.weapons,this.ammo);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package edu.yu.cs.intro.doomGame;
+
+/**
+ * The answer to whether a player can kill a monster, and if not, the first thing that stopped it.
+ * @see GameBot#checkKill(Player, Monster, Room)
+ */
+enum KillCheck {
+    /**the player can kill the monster*/
+    KILLABLE,
+    /**the player would be dead before the monster was*/
+    HEALTH,
+    /**the player has no weapon strong enough for the monster*/
+    WEAPON,
+    /**the player doesn't have the rounds for the monster, along with those of the protectors killed before it*/
+    AMMO,
+    /**the player can't kill one of the monster's protectors*/
+    PROTECTORS;
+}
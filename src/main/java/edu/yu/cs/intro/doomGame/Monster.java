@@ -61,9 +61,7 @@ public class Monster implements Comparable<Monster> {
      * @throws IllegalStateException if the monster is already dead
      */
     protected boolean attack(Weapon weapon, int rounds) throws IllegalArgumentException,IllegalStateException {
-        System.out.println("program has called attack method in the monster class");
-        System.out.println("method is using "+rounds+" of weapon "+weapon);
-        if(weapon==null||weapon.ordinal()<this.monsterType.weaponNeededToKill.ordinal()||rounds<1) {
+        if(weapon==null||!CombatRules.get().hurts(weapon,this.monsterType)||rounds<1) {
             throw new IllegalArgumentException("wrong weapon or too few rounds");
         }
         if(this.isDead) {
@@ -71,7 +69,6 @@ public class Monster implements Comparable<Monster> {
         }
         if(rounds>=this.ammoRoundsRequiredToKill) {
             this.isDead=true;
-            System.out.println("monster has been succesfully killed");
             ammoRoundsRequiredToKill=0;
         }
         else {
@@ -2,6 +2,7 @@ package edu.yu.cs.intro.doomGame;
 /**
  * Describes the types of monsters that can exist in our game
  * (Hat tip to Doom, 1993, by is Software)
+ * The weapons, rounds, health and protectors listed here are the defaults; CombatRules can replace them at startup.
  */
 public enum MonsterType {
     IMP(Weapon.FIST,1,1),
@@ -16,23 +17,37 @@ public enum MonsterType {
     /**how much health does a player lose when he is in the same room as this type of monster?*/
     protected final int playerHealthLostPerExposure;
 
+    static {
+        //check the whole rule set now, so a bad one fails as the game loads rather than at some kill in the middle of it
+        CombatRules.get();
+    }
+
     /**
-     *
+     * Each argument is replaced by the startup rules, if they have one for this type
      * @param weaponNeededToKill
      * @param ammunitionCountNeededToKill
      * @param playerHealthLostPerExposure
+     * @see CombatRules
      */
     MonsterType(Weapon weaponNeededToKill, int ammunitionCountNeededToKill, int playerHealthLostPerExposure) {
-        this.weaponNeededToKill = weaponNeededToKill;
-        this.ammunitionCountNeededToKill = ammunitionCountNeededToKill;
-        this.playerHealthLostPerExposure = playerHealthLostPerExposure;
+        this.weaponNeededToKill = CombatRules.Startup.weaponNeeded(this.name(),weaponNeededToKill);
+        this.ammunitionCountNeededToKill = CombatRules.Startup.rounds(this.name(),ammunitionCountNeededToKill);
+        this.playerHealthLostPerExposure = CombatRules.Startup.exposure(this.name(),playerHealthLostPerExposure);
     }
 
     /**
      * if this monster is in the same room as other monsters, what type of other monster would protected this one?
-     * @return
+     * @return the protector under the rules in force
+     * @see CombatRules#getProtectedBy(MonsterType)
      */
     public MonsterType getProtectedBy(){
+        return CombatRules.get().getProtectedBy(this);
+    }
+
+    /**
+     * @return the protector of this type unless the startup rules say otherwise
+     */
+    MonsterType getDefaultProtectedBy(){
         switch (this){
             case IMP:
                 return null;
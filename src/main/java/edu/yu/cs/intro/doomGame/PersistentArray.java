@@ -0,0 +1,97 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.List;
+
+/**
+ * A fixed size array that is never changed: #set returns a new array that shares all but one path of its tree with this one.
+ * Elements are kept in a tree of 32 way nodes, so #get and #set take time proportional to log32 of the size.
+ * @param <T> the type of element
+ */
+final class PersistentArray<T> {
+    private static final int BITS=5;
+    private static final int WIDTH=1<<BITS;
+    private static final int MASK=WIDTH-1;
+    private final Object[] root;
+    private final int size;
+    /**how far to shift an index to find its slot in the root; 0 if the root is a leaf*/
+    private final int shift;
+
+    private PersistentArray(Object[] root, int size, int shift) {
+        this.root=root;
+        this.size=size;
+        this.shift=shift;
+    }
+
+    /**
+     * @param elements
+     * @return an array of the given elements, in order
+     */
+    static <T> PersistentArray<T> of(List<? extends T> elements) {
+        int size=elements.size();
+        Object[][] level=new Object[Math.max(1,(size+MASK)/WIDTH)][];
+        for(int i=0;i<level.length;i++) {
+            level[i]=new Object[WIDTH];
+        }
+        for(int i=0;i<size;i++) {
+            level[i/WIDTH][i%WIDTH]=elements.get(i);
+        }
+        int shift=0;
+        while(level.length>1) {
+            Object[][] parents=new Object[(level.length+MASK)/WIDTH][];
+            for(int i=0;i<parents.length;i++) {
+                parents[i]=new Object[WIDTH];
+            }
+            for(int i=0;i<level.length;i++) {
+                parents[i/WIDTH][i%WIDTH]=level[i];
+            }
+            level=parents;
+            shift+=BITS;
+        }
+        return new PersistentArray<>(level[0],size,shift);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @param i
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if i is not a valid index
+     */
+    @SuppressWarnings("unchecked")
+    T get(int i) {
+        if(i<0||i>=this.size) {
+            throw new IndexOutOfBoundsException("index "+i+" of "+this.size);
+        }
+        Object[] node=this.root;
+        for(int level=this.shift;level>0;level-=BITS) {
+            node=(Object[])node[(i>>>level)&MASK];
+        }
+        return (T)node[i&MASK];
+    }
+
+    /**
+     * @param i
+     * @param value
+     * @return a new array with the given element at the given index, sharing everything else with this one
+     * @throws IndexOutOfBoundsException if i is not a valid index
+     */
+    PersistentArray<T> set(int i, T value) {
+        if(i<0||i>=this.size) {
+            throw new IndexOutOfBoundsException("index "+i+" of "+this.size);
+        }
+        return new PersistentArray<>(set(this.root,this.shift,i,value),this.size,this.shift);
+    }
+
+    private static Object[] set(Object[] node, int level, int i, Object value) {
+        Object[] copy=node.clone();
+        if(level==0) {
+            copy[i&MASK]=value;
+        }
+        else {
+            int slot=(i>>>level)&MASK;
+            copy[slot]=set((Object[])node[slot],level-BITS,i,value);
+        }
+        return copy;
+    }
+}
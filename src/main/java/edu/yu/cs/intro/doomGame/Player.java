@@ -1,15 +1,30 @@
 package edu.yu.cs.intro.doomGame;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a player in the game.
  * A player whose health is <= 0 is dead.
  */
 public class Player implements Comparable<Player> {
+    /**
+     * Orders players like #compareTo, but breaks ties by the order in which the players were created,
+     * so that players with the same greatest weapon, ammunition for it and health don't replace each other in a SortedSet
+     */
+    public static final Comparator<Player> STRENGTH_ORDER=Comparator.<Player>naturalOrder().thenComparingLong(p->p.creationIndex);
+    private static final AtomicLong playersCreated=new AtomicLong();
+
+    private final long creationIndex;
     private String name;
     private int health;
-    protected Map<Weapon, Integer> firePower;
-    private Set<Weapon> weaponsPacking;
+    /**rounds of ammunition per weapon, indexed by Weapon#ordinal()*/
+    private final int[] firePower;
+    /**bit Weapon#ordinal() is set if the player has that weapon*/
+    private int weaponsPacking;
+    private static final PlayerIndex[] NO_INDEXES=new PlayerIndex[0];
+    /**the indexes to tell about every change to this player's health, weapons or ammunition*/
+    private PlayerIndex[] indexes=NO_INDEXES;
 
     /**
      * @param name the player's name
@@ -18,13 +33,49 @@ public class Player implements Comparable<Player> {
     public Player(String name, int health) {
         this.name=name;
         this.health=health;
-        this.firePower=new HashMap<>();
-        this.weaponsPacking=new HashSet<>();
-        weaponsPacking.add(Weapon.FIST);
-        firePower.put(Weapon.FIST,Integer.MAX_VALUE);
-        firePower.put(Weapon.CHAINSAW,0);
-        firePower.put(Weapon.PISTOL,0);
-        firePower.put(Weapon.SHOTGUN,0);
+        this.creationIndex=playersCreated.getAndIncrement();
+        this.firePower=new int[Weapon.values().length];
+        this.weaponsPacking=bit(Weapon.FIST);
+        firePower[Weapon.FIST.ordinal()]=Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param w
+     * @return the bit that stands for the given weapon in weaponsPacking
+     */
+    private static int bit(Weapon w) {
+        return 1<<w.ordinal();
+    }
+
+    /**
+     * tell the given index about every later change to this player's health, weapons or ammunition
+     * @param index
+     */
+    void addIndex(PlayerIndex index) {
+        this.indexes=Arrays.copyOf(this.indexes,this.indexes.length+1);
+        this.indexes[this.indexes.length-1]=index;
+    }
+
+    /**
+     * stop telling the given index about changes to this player
+     * @param index
+     */
+    void removeIndex(PlayerIndex index) {
+        for(int i=0;i<this.indexes.length;i++) {
+            if(this.indexes[i]==index) {
+                PlayerIndex[] rest=new PlayerIndex[this.indexes.length-1];
+                System.arraycopy(this.indexes,0,rest,0,i);
+                System.arraycopy(this.indexes,i+1,rest,i,rest.length-i);
+                this.indexes=rest;
+                return;
+            }
+        }
+    }
+
+    private void changed() {
+        for(PlayerIndex index:this.indexes) {
+            index.changed(this);
+        }
     }
 
     /**
@@ -40,7 +91,14 @@ public class Player implements Comparable<Player> {
      * @return
      */
     public boolean hasWeapon(Weapon w) {
-        return weaponsPacking.contains(w);
+        return (weaponsPacking&bit(w))!=0;
+    }
+
+    /**
+     * @return the player's weapons, with bit Weapon#ordinal() set for each weapon it has
+     */
+    int weaponBits() {
+        return this.weaponsPacking;
     }
 
     /**
@@ -49,7 +107,7 @@ public class Player implements Comparable<Player> {
      * @return
      */
     public int getAmmunitionRoundsForWeapon(Weapon w) {
-        return firePower.get(w);
+        return firePower[w.ordinal()];
     }
 
     /**
@@ -63,10 +121,11 @@ public class Player implements Comparable<Player> {
             return Integer.MAX_VALUE;
         }
         int ammo=0;
-        if(firePower.get(weapon)+change>0) {
-            ammo=firePower.get(weapon)+change;
+        if(firePower[weapon.ordinal()]+change>0) {
+            ammo=firePower[weapon.ordinal()]+change;
         }
-        firePower.put(weapon,ammo);
+        firePower[weapon.ordinal()]=ammo;
+        this.changed();
         return ammo;
     }
 
@@ -91,8 +150,9 @@ public class Player implements Comparable<Player> {
         if(weapon==Weapon.FIST) {
             return Integer.MAX_VALUE;
         }
-        int ammo=firePower.get(weapon)+rounds;
-        firePower.put(weapon,ammo);
+        int ammo=firePower[weapon.ordinal()]+rounds;
+        firePower[weapon.ordinal()]=ammo;
+        this.changed();
         return ammo;
     }
 
@@ -111,9 +171,10 @@ public class Player implements Comparable<Player> {
         if(this.isDead()) {
             throw new IllegalStateException("player is dead");
         }
-        if(!weaponsPacking.contains(weapon)) {
-            weaponsPacking.add(weapon);
-            firePower.put(weapon,firePower.get(weapon)+5);
+        if(!this.hasWeapon(weapon)) {
+            weaponsPacking|=bit(weapon);
+            firePower[weapon.ordinal()]+=5;
+            this.changed();
             return true;
         }
         else {
@@ -132,6 +193,7 @@ public class Player implements Comparable<Player> {
             throw new IllegalStateException("player is dead");
         }
         this.health=this.health+amount;
+        this.changed();
         return this.health;
     }
 
@@ -141,6 +203,7 @@ public class Player implements Comparable<Player> {
      */
     protected void setHealth(int amount) {
         this.health=amount;
+        this.changed();
     }
 
     /**
@@ -172,27 +235,18 @@ public class Player implements Comparable<Player> {
      */
     @Override
     public int compareTo(Player other) {
-        int thisMaxOrdinal=0;
-        Weapon greatestWeapon=null;
-        for(Weapon w:this.weaponsPacking) {
-            if(w.ordinal()>thisMaxOrdinal) {
-                thisMaxOrdinal=w.ordinal();
-                greatestWeapon=w;
-            }
-        }
-        int otherMaxOrdinal=0;
-        for(Weapon weapon:other.weaponsPacking) {
-            if(weapon.ordinal()>otherMaxOrdinal) {
-                otherMaxOrdinal=weapon.ordinal();
-            }
-        }
+        //the highest set bit is the greatest weapon
+        int thisMaxOrdinal=31-Integer.numberOfLeadingZeros(this.weaponsPacking);
+        int otherMaxOrdinal=31-Integer.numberOfLeadingZeros(other.weaponsPacking);
         if(thisMaxOrdinal!=otherMaxOrdinal) {
             return thisMaxOrdinal-otherMaxOrdinal;
         }
-        if(this.firePower.get(greatestWeapon)!=other.firePower.get(greatestWeapon)) {
-            return this.firePower.get(greatestWeapon)-other.firePower.get(greatestWeapon);
+        int thisAmmo=this.firePower[thisMaxOrdinal];
+        int otherAmmo=other.firePower[thisMaxOrdinal];
+        if(thisAmmo!=otherAmmo) {
+            return Integer.compare(thisAmmo,otherAmmo);
         }
-        return this.getHealth()-other.getHealth();
+        return Integer.compare(this.getHealth(),other.getHealth());
     }
 
     /**
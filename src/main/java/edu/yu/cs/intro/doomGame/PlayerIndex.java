@@ -0,0 +1,180 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * The players of a game, indexed by what they could fight with: for each weapon, the players that have it, ordered by
+ * their ammunition for it and then their health.
+ * Players tell every index they are in about each change to their health, weapons or ammunition (see Player#addIndex),
+ * and the index moves them in O(log n) per weapon, so answers never go stale.
+ * Each player also has a rank, its place in the collection the index was made from; answers list players in rank order,
+ * so a caller that would have scanned that collection sees the same players in the same order, just without the ones
+ * that can't match.
+ */
+final class PlayerIndex {
+    private static final int WEAPONS=Weapon.values().length;
+    private final Map<Player,Entry> entries=new IdentityHashMap<>();
+    /**by Weapon#ordinal(), the players that have the weapon, by ammunition for it, then health, then rank*/
+    private final List<TreeSet<Entry>> byWeapon=new ArrayList<>(WEAPONS);
+
+    /**
+     * @param players the players to index; their iteration order gives them their ranks
+     */
+    PlayerIndex(Collection<Player> players) {
+        for(int w=0;w<WEAPONS;w++) {
+            int weapon=w;
+            Comparator<Entry> order=Comparator.<Entry>comparingInt(e->e.ammo[weapon]).thenComparingInt(e->e.health).thenComparingInt(e->e.rank);
+            this.byWeapon.add(new TreeSet<>(order));
+        }
+        for(Player p:players) {
+            if(this.entries.containsKey(p)) {
+                continue;
+            }
+            Entry e=new Entry(p,this.entries.size());
+            this.entries.put(p,e);
+            this.insert(e);
+            p.addIndex(this);
+        }
+    }
+
+    /**
+     * Called by the player after its health, weapons or ammunition changed: move it to its new place
+     * @param player
+     */
+    void changed(Player player) {
+        Entry e=this.entries.get(player);
+        if(e==null||e.matches(player)) {
+            return;
+        }
+        this.remove(e);
+        e.copy(player);
+        this.insert(e);
+    }
+
+    /**
+     * Stop being told about changes to the players; the index must not be used afterwards
+     */
+    void close() {
+        for(Player p:this.entries.keySet()) {
+            p.removeIndex(this);
+        }
+        this.entries.clear();
+    }
+
+    int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Find the players that might be able to kill a monster that needs the given weapon and rounds in a room where an
+     * encounter costs the given health. The weapon a player uses is the weakest one it has that is at least as strong
+     * as the one needed, so that is the one whose ammunition is looked at.
+     * Every player that GameBot#canKill would say can kill the monster is in the answer, but not every player in the
+     * answer can, since the monster's protectors aren't taken into account.
+     * @param weaponNeeded
+     * @param roundsNeeded
+     * @param healthLostPerEncounter
+     * @return the players with more health than healthLostPerEncounter, whose weapon for the monster has at least roundsNeeded rounds, by rank
+     */
+    List<Player> findCandidates(Weapon weaponNeeded, int roundsNeeded, int healthLostPerEncounter) {
+        List<Entry> found=new ArrayList<>();
+        int needed=weaponNeeded.ordinal();
+        for(int w=needed;w<WEAPONS;w++) {
+            //a player with a weaker weapon that is still strong enough uses that one, and is found under it
+            int weakerUsable=((1<<w)-1)&(-1<<needed);
+            for(Entry e:this.byWeapon.get(w).tailSet(probe(w,roundsNeeded,healthLostPerEncounter+1,Integer.MIN_VALUE),true)) {
+                if((e.weapons&weakerUsable)==0&&e.health>healthLostPerEncounter) {
+                    found.add(e);
+                }
+            }
+        }
+        return byRank(found);
+    }
+
+    /**
+     * @param weapon
+     * @param ammunition
+     * @return the players that have the given weapon with exactly the given ammunition for it, by rank
+     */
+    List<Player> findWithWeaponAndAmmunition(Weapon weapon, int ammunition) {
+        int w=weapon.ordinal();
+        List<Entry> found=new ArrayList<>(this.byWeapon.get(w).subSet(probe(w,ammunition,Integer.MIN_VALUE,Integer.MIN_VALUE),true,probe(w,ammunition,Integer.MAX_VALUE,Integer.MAX_VALUE),true));
+        return byRank(found);
+    }
+
+    private static List<Player> byRank(List<Entry> found) {
+        found.sort(Comparator.comparingInt(e->e.rank));
+        List<Player> players=new ArrayList<>(found.size());
+        for(Entry e:found) {
+            players.add(e.player);
+        }
+        return players;
+    }
+
+    /**
+     * @return an entry with no player, to mark where the players with the given ammunition for the weapon, health and rank would be
+     */
+    private static Entry probe(int weapon, int ammo, int health, int rank) {
+        Entry probe=new Entry(null,rank);
+        probe.ammo[weapon]=ammo;
+        probe.health=health;
+        return probe;
+    }
+
+    private void insert(Entry e) {
+        for(int w=0;w<WEAPONS;w++) {
+            if((e.weapons&(1<<w))!=0) {
+                this.byWeapon.get(w).add(e);
+            }
+        }
+    }
+
+    private void remove(Entry e) {
+        for(int w=0;w<WEAPONS;w++) {
+            if((e.weapons&(1<<w))!=0) {
+                this.byWeapon.get(w).remove(e);
+            }
+        }
+    }
+
+    /**
+     * A player and the state it was last indexed under, which is what the trees are ordered by
+     */
+    private static final class Entry {
+        private final Player player;
+        private final int rank;
+        private final int[] ammo=new int[WEAPONS];
+        private int weapons;
+        private int health;
+
+        Entry(Player player, int rank) {
+            this.player=player;
+            this.rank=rank;
+            if(player!=null) {
+                this.copy(player);
+            }
+        }
+
+        void copy(Player player) {
+            this.weapons=0;
+            for(Weapon w:Weapon.values()) {
+                if(player.hasWeapon(w)) {
+                    this.weapons|=1<<w.ordinal();
+                }
+                this.ammo[w.ordinal()]=player.getAmmunitionRoundsForWeapon(w);
+            }
+            this.health=player.getHealth();
+        }
+
+        boolean matches(Player player) {
+            if(this.health!=player.getHealth()) {
+                return false;
+            }
+            for(Weapon w:Weapon.values()) {
+                if(player.hasWeapon(w)!=((this.weapons&(1<<w.ordinal()))!=0)||this.ammo[w.ordinal()]!=player.getAmmunitionRoundsForWeapon(w)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,12 +2,27 @@ package edu.yu.cs.intro.doomGame;
 import java.util.*;
 import java.util.SortedSet;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A Room in the game, which contains both monsters as well as rewards for the player that completes the room,
  * which is defined as the player who kills the last living monster in the room
  */
 public class Room implements Comparable<Room> {
+    /**
+     * Orders rooms by danger level, like #compareTo, but breaks ties by the order in which the rooms were created,
+     * so that rooms with the same danger level don't replace each other when sorted.
+     * A room's danger level drops as its monsters are killed, so a SortedSet kept in this order goes out of order; to
+     * keep rooms in a SortedSet, use #CREATION_ORDER.
+     */
+    public static final Comparator<Room> DANGER_ORDER=Comparator.comparingInt(Room::getDangerLevel).thenComparingLong(r->r.creationIndex);
+    /**
+     * Orders rooms by the order in which they were created, which never changes
+     */
+    public static final Comparator<Room> CREATION_ORDER=Comparator.comparingLong(r->r.creationIndex);
+    private static final AtomicLong roomsCreated=new AtomicLong();
+
+    private final long creationIndex;
     private SortedSet<Monster> monsters;
     private Set<Weapon> weaponsWonUponCompletion;
     private SortedSet<Monster> deadMonsters;
@@ -16,6 +31,17 @@ public class Room implements Comparable<Room> {
     private String name;
     private int dangerLevel;
     private SortedSet<Monster> liveMonsters;
+    private int version;
+    /**the live monsters of each type*/
+    private Map<MonsterType,SortedSet<Monster>> liveMonstersByType;
+    /**by MonsterType#ordinal(), how many of the monsters in liveMonsters are of that type*/
+    private int[] liveCountByType;
+    /**by MonsterType#ordinal()*(the number of types+1)+the protector's ordinal+1, or +0 for none, how many of the monsters in liveMonsters are of that type and protector*/
+    private int[] liveCountByTypeAndProtector;
+    /**the sum of playerHealthLostPerExposure over liveMonsters*/
+    private int healthLostPerEncounter;
+    /**all the live protectors of each protector type, i.e. the monsters of that type and, transitively, their protectors. Built on demand, cleared when a monster is killed*/
+    private Map<MonsterType,SortedSet<Monster>> protectorClosures;
 
     /**
      *
@@ -31,6 +57,7 @@ public class Room implements Comparable<Room> {
         this.ammoWonUponCompletion=ammoWonUponCompletion;
         this.healthWonUponCompletion=healthWonUponCompletion;
         this.name=name;
+        this.creationIndex=roomsCreated.getAndIncrement();
         //this.deadMonsters=new HashSet<>();
         int x=0;
         for(Monster m:this.monsters) {
@@ -40,6 +67,35 @@ public class Room implements Comparable<Room> {
         this.liveMonsters=new TreeSet<>();
         this.deadMonsters=new TreeSet<>();
         liveMonsters.addAll(this.monsters);
+        this.liveMonstersByType=new EnumMap<>(MonsterType.class);
+        for(MonsterType type:MonsterType.values()) {
+            this.liveMonstersByType.put(type,new TreeSet<>());
+        }
+        this.liveCountByType=new int[MonsterType.values().length];
+        this.liveCountByTypeAndProtector=new int[MonsterType.values().length*(MonsterType.values().length+1)];
+        for(Monster m:this.liveMonsters) {
+            this.liveMonstersByType.get(m.getMonsterType()).add(m);
+            this.liveCountByType[m.getMonsterType().ordinal()]++;
+            this.liveCountByTypeAndProtector[typeAndProtector(m.getMonsterType(),m.getProtectedBy())]++;
+            this.healthLostPerEncounter+=m.getMonsterType().playerHealthLostPerExposure;
+        }
+        this.protectorClosures=new EnumMap<>(MonsterType.class);
+    }
+
+    /**
+     * For a subclass that keeps its monsters itself, and so overrides every method that looks at them
+     * @param weaponsWonUponCompletion weapons a player gains when killing the last monster in this room
+     * @param ammoWonUponCompletion ammunition a player gains when killing the last monster in this room
+     * @param healthWonUponCompletion health a player gains when killing the last monster in this room
+     * @param name the room's name
+     * @see CompactRoom
+     */
+    protected Room(Set<Weapon> weaponsWonUponCompletion,Map<Weapon,Integer> ammoWonUponCompletion,int healthWonUponCompletion,String name) {
+        this.weaponsWonUponCompletion=weaponsWonUponCompletion;
+        this.ammoWonUponCompletion=ammoWonUponCompletion;
+        this.healthWonUponCompletion=healthWonUponCompletion;
+        this.name=name;
+        this.creationIndex=roomsCreated.getAndIncrement();
     }
 
     /**
@@ -50,8 +106,114 @@ public class Room implements Comparable<Room> {
     protected void monsterKilled(Monster monster) {
         monster.setIsDead(true);
         deadMonsters.add(monster);
-        liveMonsters.remove(monster);
+        //Monster#compareTo isn't a total order, so the set can fail to find the monster; the counts follow what it holds
+        if(liveMonsters.remove(monster)) {
+            this.liveCountByType[monster.getMonsterType().ordinal()]--;
+            this.liveCountByTypeAndProtector[typeAndProtector(monster.getMonsterType(),monster.getProtectedBy())]--;
+            this.healthLostPerEncounter-=monster.getMonsterType().playerHealthLostPerExposure;
+        }
+        liveMonstersByType.get(monster.getMonsterType()).remove(monster);
+        protectorClosures.clear();
         this.dangerLevel=this.dangerLevel-(monster.getMonsterType().ordinal()+1);
+        this.version++;
+    }
+
+    /**
+     * Same as calling #monsterKilled for each of the given monsters in turn. If they are exactly the room's live monsters,
+     * the room lets go of them all at once, instead of finding and removing each one in its sets of live monsters.
+     * @param killed
+     */
+    protected void monstersKilled(List<Monster> killed) {
+        Set<Monster> killedSet=new HashSet<>(killed);
+        boolean allLive=killedSet.size()==killed.size()&&killed.size()==this.liveMonsters.size();
+        for(Iterator<Monster> it=this.liveMonsters.iterator();allLive&&it.hasNext();) {
+            allLive=killedSet.contains(it.next());
+        }
+        if(!allLive) {
+            for(Monster m:killed) {
+                this.monsterKilled(m);
+            }
+            return;
+        }
+        for(Monster m:killed) {
+            m.setIsDead(true);
+            this.dangerLevel=this.dangerLevel-(m.getMonsterType().ordinal()+1);
+        }
+        //into an empty set, a TreeSet copies a sorted set with the same order in linear time
+        this.deadMonsters.addAll(this.deadMonsters.isEmpty() ? this.liveMonsters : killed);
+        this.liveMonsters.clear();
+        for(SortedSet<Monster> ofType:this.liveMonstersByType.values()) {
+            ofType.clear();
+        }
+        Arrays.fill(this.liveCountByType,0);
+        Arrays.fill(this.liveCountByTypeAndProtector,0);
+        this.healthLostPerEncounter=0;
+        this.protectorClosures.clear();
+        this.version+=killed.size();
+    }
+
+    /**
+     * Get the set of all live monsters that would need to be killed first before you could kill the given one,
+     * i.e. its protectors, their protectors, and so on.
+     * Each protector type's closure is worked out once per version of the room, from the live monsters of each type,
+     * so a call costs time proportional to the size of its answer.
+     * @param monster
+     * @return a new set, which the caller may change
+     */
+    protected SortedSet<Monster> getAllProtectors(Monster monster) {
+        if(monster.getProtectedBy()==null) {
+            return new TreeSet<>();
+        }
+        SortedSet<Monster> closure=this.protectorClosures.get(monster.getProtectedBy());
+        if(closure==null) {
+            closure=new TreeSet<>();
+            this.addProtectors(monster.getProtectedBy(),closure,EnumSet.noneOf(MonsterType.class));
+            this.protectorClosures.put(monster.getProtectedBy(),closure);
+        }
+        return new TreeSet<>(closure);
+    }
+
+    /**
+     * @param type
+     * @return a new list of the live monsters of the given type, in the order #getAllProtectors(Monster) goes through them
+     */
+    protected List<Monster> getLiveMonsters(MonsterType type) {
+        return new ArrayList<>(this.liveMonstersByType.get(type));
+    }
+
+    /**
+     * The live monsters as they are now, in the order of #getLiveMonsters(), for going through them while some are killed
+     * @return a new list of the live monsters, which later kills don't change
+     */
+    protected Iterable<Monster> snapshotLiveMonsters() {
+        return new ArrayList<>(this.liveMonsters);
+    }
+
+    /**
+     * add every live monster of the given type to the closure, each followed by its own protectors
+     * @param type
+     * @param closure
+     * @param typesAdded protector types already added, so that protectors which protect each other don't recurse forever
+     */
+    private void addProtectors(MonsterType type, SortedSet<Monster> closure, Set<MonsterType> typesAdded) {
+        if(!typesAdded.add(type)) {
+            return;
+        }
+        for(Monster m:this.liveMonstersByType.get(type)) {
+            closure.add(m);
+            if(m.getProtectedBy()!=null) {
+                this.addProtectors(m.getProtectedBy(),closure,typesAdded);
+            }
+        }
+    }
+
+    /**
+     * The version starts at 0 and goes up by one every time a monster in this room is killed,
+     * so two equal versions of the same room always have the same set of live monsters
+     * @return the version of this room's set of live monsters
+     */
+    protected int getVersion() {
+        return this.version;
     }
 
     /**
@@ -129,16 +291,34 @@ public class Room implements Comparable<Room> {
 
     /**
      * Every time a player enters a room, he loses health points based on the monster in the room.
-     * The amount lost is the sum of the values of playerHealthLostPerExposure of all the monsters in the room
+     * The amount lost is the sum of the values of playerHealthLostPerExposure of all the monsters in the room.
+     * It is kept up to date as monsters are killed, so this takes constant time.
      * @return the amount of health lost
      * @see MonsterType#playerHealthLostPerExposure
      */
     public int getPlayerHealthLostPerEncounter() {
-        int healthLost=0;
-        for (Monster m:this.liveMonsters) {
-            healthLost+=m.getMonsterType().playerHealthLostPerExposure;
-        }
-        return healthLost;
+        return this.healthLostPerEncounter;
+    }
+
+    /**
+     * @param type
+     * @return how many of the monsters in #getLiveMonsters() are of the given type
+     */
+    public int getLiveMonsterCount(MonsterType type) {
+        return this.liveCountByType[type.ordinal()];
+    }
+
+    /**
+     * @param type
+     * @param protectedBy a protector type, or null for none
+     * @return how many of the monsters in #getLiveMonsters() are of the given type and protected by the given type
+     */
+    protected int getLiveMonsterCount(MonsterType type, MonsterType protectedBy) {
+        return this.liveCountByTypeAndProtector[typeAndProtector(type,protectedBy)];
+    }
+
+    private static int typeAndProtector(MonsterType type, MonsterType protectedBy) {
+        return type.ordinal()*(MonsterType.values().length+1)+(protectedBy==null ? 0 : protectedBy.ordinal()+1);
     }
 
     /**
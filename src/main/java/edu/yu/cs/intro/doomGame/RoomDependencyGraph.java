@@ -0,0 +1,227 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * Links each room to the rooms whose rewards it needs, and splits the rooms into strongly connected components, in an
+ * order where the rooms a component needs are all in components before it.
+ * A room needs the rewards of others if it has monsters that need a weapon stronger than any the live players have,
+ * in which case it needs the rooms that give the weakest weapon that will do, of those any room gives. It also needs
+ * them if it has monsters that need a weapon the players are short of rounds for, taken over the whole game, in which
+ * case it needs the rooms that give that weapon or rounds for it. Stronger weapons are left out, since
+ * GameBot#killMonster always uses the weakest weapon a player has that will do, and following them would tie most rooms
+ * into one component: a room giving a shotgun would be needed by every room with a demon.
+ * Rather than an edge to each room it needs, a room has one edge to a node standing for the weapon, or for its rounds,
+ * which has an edge to each room giving it, so the graph only has as many edges as rooms times weapons.
+ * Health isn't part of the graph: every room needs it and nearly every room gives it, so following it would put every
+ * room in one component.
+ */
+final class RoomDependencyGraph {
+    private static final Weapon[] WEAPONS=Weapon.values();
+    private static final MonsterType[] TYPES=MonsterType.values();
+    private final List<List<Room>> components;
+
+    /**
+     * @param rooms
+     * @param players the players; dead ones are left out
+     */
+    RoomDependencyGraph(Collection<Room> rooms, Collection<Player> players) {
+        Room[] ordered=rooms.toArray(new Room[0]);
+        //rooms the search starts from first come first among components that don't need each other
+        Arrays.sort(ordered,Room.DANGER_ORDER);
+        int roomCount=ordered.length;
+        //nodes: the rooms, then a node per weapon for rooms giving it, then a node per weapon for rooms giving rounds for it
+        int weaponNodes=roomCount;
+        int ammoNodes=roomCount+WEAPONS.length;
+        int nodeCount=roomCount+2*WEAPONS.length;
+        int strongestHeld=-1;
+        long[] roundsHeld=new long[WEAPONS.length];
+        for(Player p:players) {
+            if(p.isDead()) {
+                continue;
+            }
+            for(Weapon w:WEAPONS) {
+                if(p.hasWeapon(w)) {
+                    strongestHeld=Math.max(strongestHeld,w.ordinal());
+                }
+                roundsHeld[w.ordinal()]+=p.getAmmunitionRoundsForWeapon(w);
+            }
+        }
+        long[] roundsNeeded=new long[WEAPONS.length];
+        boolean[] given=new boolean[WEAPONS.length];
+        for(Room r:ordered) {
+            for(MonsterType t:TYPES) {
+                roundsNeeded[t.weaponNeededToKill.ordinal()]+=(long)r.getLiveMonsterCount(t)*t.ammunitionCountNeededToKill;
+            }
+            for(Weapon w:r.getWeaponsWonUponCompletion()) {
+                given[w.ordinal()]=true;
+            }
+        }
+        //by weapon, the weakest weapon at least as strong that some room gives, or -1 if none does
+        int[] weakestGiven=new int[WEAPONS.length];
+        int weakest=-1;
+        for(int w=WEAPONS.length-1;w>=0;w--) {
+            if(given[w]) {
+                weakest=w;
+            }
+            weakestGiven[w]=weakest;
+        }
+        //a fist never runs out
+        boolean[] shortOfRounds=new boolean[WEAPONS.length];
+        for(int w=1;w<WEAPONS.length;w++) {
+            shortOfRounds[w]=roundsHeld[w]<roundsNeeded[w];
+        }
+        Edges edges=new Edges(nodeCount);
+        for(int r=0;r<roomCount;r++) {
+            Room room=ordered[r];
+            int strongestNeeded=-1;
+            for(MonsterType t:TYPES) {
+                if(room.getLiveMonsterCount(t)>0) {
+                    int w=t.weaponNeededToKill.ordinal();
+                    strongestNeeded=Math.max(strongestNeeded,w);
+                    if(shortOfRounds[w]) {
+                        edges.add(r,ammoNodes+w);
+                    }
+                }
+            }
+            if(strongestNeeded>strongestHeld&&weakestGiven[strongestNeeded]>=0) {
+                edges.add(r,weaponNodes+weakestGiven[strongestNeeded]);
+            }
+            //a weapon comes with a few rounds
+            boolean[] roundsGiven=new boolean[WEAPONS.length];
+            for(Weapon w:room.getWeaponsWonUponCompletion()) {
+                edges.add(weaponNodes+w.ordinal(),r);
+                roundsGiven[w.ordinal()]=true;
+            }
+            for(Map.Entry<Weapon,Integer> e:room.getAmmoWonUponCompletion().entrySet()) {
+                roundsGiven[e.getKey().ordinal()]|=e.getValue()>0;
+            }
+            for(int w=1;w<WEAPONS.length;w++) {
+                if(roundsGiven[w]) {
+                    edges.add(ammoNodes+w,r);
+                }
+            }
+        }
+        this.components=stronglyConnectedComponents(edges.toAdjacency(),ordered);
+    }
+
+    /**
+     * @return the components, each as its rooms, such that every room a component needs is in it or in one before it
+     */
+    List<List<Room>> components() {
+        return this.components;
+    }
+
+    /**
+     * Tarjan's algorithm, with its own stack rather than recursion, since a chain of rooms can be longer than the call
+     * stack is deep. It finishes a component only once every component reachable from it is finished, so following edges
+     * from a room to the rooms it needs, it finishes the needed ones first.
+     * @param adjacency by node, the nodes it has edges to
+     * @param rooms the rooms, which are the first nodes
+     * @return the components that have rooms, in the order they were finished
+     */
+    private static List<List<Room>> stronglyConnectedComponents(int[][] adjacency, Room[] rooms) {
+        int n=adjacency.length;
+        int[] index=new int[n];
+        Arrays.fill(index,-1);
+        int[] lowLink=new int[n];
+        boolean[] onStack=new boolean[n];
+        int[] stack=new int[n];
+        int stackSize=0;
+        //the search path: a node, and how many of its edges were followed
+        int[] path=new int[n];
+        int[] nextEdge=new int[n];
+        int pathSize=0;
+        int nextIndex=0;
+        List<List<Room>> components=new ArrayList<>();
+        for(int root=0;root<n;root++) {
+            if(index[root]>=0) {
+                continue;
+            }
+            path[pathSize]=root;
+            nextEdge[pathSize++]=0;
+            index[root]=lowLink[root]=nextIndex++;
+            stack[stackSize++]=root;
+            onStack[root]=true;
+            while(pathSize>0) {
+                int v=path[pathSize-1];
+                if(nextEdge[pathSize-1]<adjacency[v].length) {
+                    int w=adjacency[v][nextEdge[pathSize-1]++];
+                    if(index[w]<0) {
+                        index[w]=lowLink[w]=nextIndex++;
+                        stack[stackSize++]=w;
+                        onStack[w]=true;
+                        path[pathSize]=w;
+                        nextEdge[pathSize++]=0;
+                    }
+                    else if(onStack[w]) {
+                        lowLink[v]=Math.min(lowLink[v],index[w]);
+                    }
+                    continue;
+                }
+                pathSize--;
+                if(pathSize>0) {
+                    int parent=path[pathSize-1];
+                    lowLink[parent]=Math.min(lowLink[parent],lowLink[v]);
+                }
+                if(lowLink[v]==index[v]) {
+                    List<Room> component=new ArrayList<>();
+                    int w;
+                    do {
+                        w=stack[--stackSize];
+                        onStack[w]=false;
+                        if(w<rooms.length) {
+                            component.add(rooms[w]);
+                        }
+                    } while(w!=v);
+                    if(!component.isEmpty()) {
+                        components.add(component);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * A growable list of edges, turned into adjacency arrays once they are all added
+     */
+    private static final class Edges {
+        private final int nodeCount;
+        private int[] from=new int[16];
+        private int[] to=new int[16];
+        private int size;
+
+        Edges(int nodeCount) {
+            this.nodeCount=nodeCount;
+        }
+
+        void add(int from, int to) {
+            if(this.size==this.from.length) {
+                this.from=Arrays.copyOf(this.from,this.size*2);
+                this.to=Arrays.copyOf(this.to,this.size*2);
+            }
+            this.from[this.size]=from;
+            this.to[this.size]=to;
+            this.size++;
+        }
+
+        /**
+         * @return by node, the nodes it has edges to, in the order the edges were added
+         */
+        int[][] toAdjacency() {
+            int[] degree=new int[this.nodeCount];
+            for(int i=0;i<this.size;i++) {
+                degree[this.from[i]]++;
+            }
+            int[][] adjacency=new int[this.nodeCount][];
+            for(int v=0;v<this.nodeCount;v++) {
+                adjacency[v]=new int[degree[v]];
+                degree[v]=0;
+            }
+            for(int i=0;i<this.size;i++) {
+                adjacency[this.from[i]][degree[this.from[i]]++]=this.to[i];
+            }
+            return adjacency;
+        }
+    }
+}
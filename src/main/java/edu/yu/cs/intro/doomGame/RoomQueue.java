@@ -0,0 +1,169 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+
+/**
+ * Incomplete rooms, least dangerous first: an indexed binary heap on each room's current danger level, with ties broken by
+ * the order the rooms were first added in.
+ * Unlike a TreeSet of rooms, it is told when a queued room's danger level changes, through #update, and moves the room
+ * in O(log n), so its order never goes stale, and rooms with the same danger level are all kept.
+ */
+final class RoomQueue {
+    /**every room ever added, by id, which is the order it was first added in*/
+    private final List<Room> rooms=new ArrayList<>();
+    private final Map<Room,Integer> ids=new IdentityHashMap<>();
+    /**ids of the queued rooms, as a binary heap*/
+    private int[] heap=new int[16];
+    /**by id, where the room is in the heap, or -1 if it isn't queued*/
+    private int[] position=new int[16];
+    private int size;
+
+    /**
+     * @param rooms the rooms to queue, in the order that breaks ties between them; completed ones are given ids but not queued
+     */
+    RoomQueue(Collection<Room> rooms) {
+        for(Room r:rooms) {
+            this.add(r);
+        }
+    }
+
+    /**
+     * queue the room, unless it is completed or already queued
+     * @param room
+     */
+    void add(Room room) {
+        int id=this.idOf(room);
+        if(id<0) {
+            id=this.rooms.size();
+            this.rooms.add(room);
+            this.ids.put(room,id);
+            if(id==this.position.length) {
+                this.position=Arrays.copyOf(this.position,id*2);
+            }
+            this.position[id]=-1;
+        }
+        if(this.position[id]>=0||room.isCompleted()) {
+            return;
+        }
+        if(this.size==this.heap.length) {
+            this.heap=Arrays.copyOf(this.heap,this.size*2);
+        }
+        this.heap[this.size]=id;
+        this.position[id]=this.size;
+        this.size++;
+        this.siftUp(this.size-1);
+    }
+
+    /**
+     * Move the room to its place for its current danger level, or take it out of the queue if it is now completed.
+     * Has no effect if the room isn't queued.
+     * @param room
+     */
+    void update(Room room) {
+        int id=this.idOf(room);
+        if(id<0||this.position[id]<0) {
+            return;
+        }
+        int i=this.position[id];
+        if(room.isCompleted()) {
+            this.removeAt(i);
+            return;
+        }
+        this.siftUp(i);
+        this.siftDown(this.position[id]);
+    }
+
+    /**
+     * @return the least dangerous queued room, which is taken out of the queue, or null if the queue is empty
+     */
+    Room poll() {
+        if(this.size==0) {
+            return null;
+        }
+        Room room=this.rooms.get(this.heap[0]);
+        this.removeAt(0);
+        return room;
+    }
+
+    /**
+     * @param room
+     * @return the room's id, i.e. how many other rooms were added before it, or -1 if it was never added
+     */
+    int idOf(Room room) {
+        Integer id=this.ids.get(room);
+        return id==null ? -1 : id;
+    }
+
+    /**
+     * @return how many rooms have been given ids
+     */
+    int idCount() {
+        return this.rooms.size();
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size==0;
+    }
+
+    private void removeAt(int i) {
+        int id=this.heap[i];
+        this.size--;
+        this.position[id]=-1;
+        if(i==this.size) {
+            return;
+        }
+        int moved=this.heap[this.size];
+        this.heap[i]=moved;
+        this.position[moved]=i;
+        this.siftUp(i);
+        this.siftDown(this.position[moved]);
+    }
+
+    private void siftUp(int i) {
+        int id=this.heap[i];
+        while(i>0) {
+            int parent=(i-1)>>>1;
+            if(!this.before(id,this.heap[parent])) {
+                break;
+            }
+            this.heap[i]=this.heap[parent];
+            this.position[this.heap[i]]=i;
+            i=parent;
+        }
+        this.heap[i]=id;
+        this.position[id]=i;
+    }
+
+    private void siftDown(int i) {
+        int id=this.heap[i];
+        while(true) {
+            int child=2*i+1;
+            if(child>=this.size) {
+                break;
+            }
+            if(child+1<this.size&&this.before(this.heap[child+1],this.heap[child])) {
+                child++;
+            }
+            if(!this.before(this.heap[child],id)) {
+                break;
+            }
+            this.heap[i]=this.heap[child];
+            this.position[this.heap[i]]=i;
+            i=child;
+        }
+        this.heap[i]=id;
+        this.position[id]=i;
+    }
+
+    /**
+     * @return true if room a comes before room b: it is less dangerous, or as dangerous and was added first
+     */
+    private boolean before(int a, int b) {
+        int dangerA=this.rooms.get(a).getDangerLevel();
+        int dangerB=this.rooms.get(b).getDangerLevel();
+        return dangerA<dangerB||(dangerA==dangerB&&a<b);
+    }
+}
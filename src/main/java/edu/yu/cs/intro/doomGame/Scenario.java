@@ -0,0 +1,18 @@
+package edu.yu.cs.intro.doomGame;
+
+/**
+ * The definition of a game that can be played any number of times, e.g. by a BatchRunner
+ */
+public interface Scenario {
+    /**
+     * @return the scenario's name, used to report its results
+     */
+    String getName();
+
+    /**
+     * Build the game. Every call must build new Rooms, Monsters and Players, sharing nothing with a GameBot built
+     * by an earlier call, since the bots may be played at the same time on different threads.
+     * @return a new GameBot for this scenario
+     */
+    GameBot createGameBot();
+}
@@ -0,0 +1,378 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Makes up a game from a seed, as large as needed: the same seed and settings always give the same rooms and players.
+ * Each room and each player is made from its own seed, worked out from the game's seed and its number, so any one of them
+ * can be made without making the ones before it, and #rooms and #players make them one at a time, only as they are
+ * streamed, so a game of millions of rooms never has to be held in memory at once.
+ * Every setting has a default, and each of the with methods returns a new generator with some of them changed:
+ * <ul>
+ *     <li>how many monsters of each type a room has, picked evenly from a range for each type</li>
+ *     <li>the chance of each monster having a custom protector picked for it instead of its type's. It is picked
+ *     evenly from no protector and the types that can't end up protected by the monster's own type, so that no monster
+ *     is ever among its own protectors</li>
+ *     <li>the chance of a room giving each weapon other than the fist upon completion, and the most ammunition for each
+ *     weapon and the most health it gives</li>
+ *     <li>each player's health, picked evenly from a range, and the chance of having each weapon other than the fist,
+ *     with up to a most ammunition for it</li>
+ * </ul>
+ */
+public class ScenarioGenerator implements Scenario {
+    private static final MonsterType[] MONSTER_TYPES=MonsterType.values();
+    private static final Weapon[] WEAPONS=Weapon.values();
+    /**by MonsterType#ordinal(), the types a custom protector of that type may be, with null standing for no protector*/
+    private static final MonsterType[][] CUSTOM_PROTECTORS=customProtectors();
+
+    private final String name;
+    private final long seed;
+    private final long roomCount;
+    private final int playerCount;
+    /**by MonsterType#ordinal(), the fewest and most monsters of that type in a room*/
+    private final int[] minMonsters;
+    private final int[] maxMonsters;
+    private final double customProtectorChance;
+    private final double rewardWeaponChance;
+    private final int maxRewardAmmo;
+    private final int maxRewardHealth;
+    private final int minPlayerHealth;
+    private final int maxPlayerHealth;
+    private final double playerWeaponChance;
+    private final int maxPlayerAmmo;
+    /**rooms with at least this many monsters are made as CompactRooms*/
+    private final int compactRoomMonsters;
+
+    /**
+     * A generator with the default settings: 1 to 4 imps, and up to 2 demons, 2 spectres and 1 baron of hell per room, no
+     * custom protectors, rewards of each weapon with a chance of 1 in 4 and up to 20 rounds of each and 50 health, and
+     * players with 300 to 600 health and each weapon with a chance of 1 in 2 and up to 40 rounds for it.
+     * A room with no monsters is completed before the game starts, which GameBot#play never counts as completing it,
+     * so by default every room has at least one monster.
+     * @param name
+     * @param seed
+     * @param roomCount
+     * @param playerCount
+     * @throws IllegalArgumentException if name is null or either count is negative
+     */
+    public ScenarioGenerator(String name, long seed, long roomCount, int playerCount) {
+        this(name,seed,roomCount,playerCount,new int[]{1,0,0,0},new int[]{4,2,2,1},0,0.25,20,50,300,600,0.5,40,Integer.MAX_VALUE);
+        if(name==null) {
+            throw new IllegalArgumentException("name can't be null");
+        }
+        if(roomCount<0||playerCount<0) {
+            throw new IllegalArgumentException("roomCount and playerCount can't be negative");
+        }
+    }
+
+    private ScenarioGenerator(String name, long seed, long roomCount, int playerCount, int[] minMonsters, int[] maxMonsters, double customProtectorChance,
+                              double rewardWeaponChance, int maxRewardAmmo, int maxRewardHealth, int minPlayerHealth, int maxPlayerHealth,
+                              double playerWeaponChance, int maxPlayerAmmo, int compactRoomMonsters) {
+        this.name=name;
+        this.seed=seed;
+        this.roomCount=roomCount;
+        this.playerCount=playerCount;
+        this.minMonsters=minMonsters;
+        this.maxMonsters=maxMonsters;
+        this.customProtectorChance=customProtectorChance;
+        this.rewardWeaponChance=rewardWeaponChance;
+        this.maxRewardAmmo=maxRewardAmmo;
+        this.maxRewardHealth=maxRewardHealth;
+        this.minPlayerHealth=minPlayerHealth;
+        this.maxPlayerHealth=maxPlayerHealth;
+        this.playerWeaponChance=playerWeaponChance;
+        this.maxPlayerAmmo=maxPlayerAmmo;
+        this.compactRoomMonsters=compactRoomMonsters;
+    }
+
+    /**
+     * @param type
+     * @param min
+     * @param max
+     * @return the same generator, but with between min and max monsters of the given type in each room
+     * @throws IllegalArgumentException if type is null, min < 0 or max < min
+     */
+    public ScenarioGenerator withMonsterCount(MonsterType type, int min, int max) {
+        if(type==null) {
+            throw new IllegalArgumentException("type can't be null");
+        }
+        checkRange(min,max);
+        int[] mins=this.minMonsters.clone();
+        int[] maxes=this.maxMonsters.clone();
+        mins[type.ordinal()]=min;
+        maxes[type.ordinal()]=max;
+        return new ScenarioGenerator(this.name,this.seed,this.roomCount,this.playerCount,mins,maxes,this.customProtectorChance,
+                this.rewardWeaponChance,this.maxRewardAmmo,this.maxRewardHealth,this.minPlayerHealth,this.maxPlayerHealth,
+                this.playerWeaponChance,this.maxPlayerAmmo,this.compactRoomMonsters);
+    }
+
+    /**
+     * @param chance
+     * @return the same generator, but giving each monster a custom protector with the given chance
+     * @throws IllegalArgumentException if chance isn't between 0 and 1
+     */
+    public ScenarioGenerator withCustomProtectorChance(double chance) {
+        checkChance(chance);
+        return new ScenarioGenerator(this.name,this.seed,this.roomCount,this.playerCount,this.minMonsters,this.maxMonsters,chance,
+                this.rewardWeaponChance,this.maxRewardAmmo,this.maxRewardHealth,this.minPlayerHealth,this.maxPlayerHealth,
+                this.playerWeaponChance,this.maxPlayerAmmo,this.compactRoomMonsters);
+    }
+
+    /**
+     * @param weaponChance the chance of a room giving each weapon other than the fist
+     * @param maxAmmo the most rounds a room gives for each weapon
+     * @param maxHealth the most health a room gives
+     * @return the same generator, but with the given rewards for completing a room
+     * @throws IllegalArgumentException if weaponChance isn't between 0 and 1, or maxAmmo or maxHealth is negative
+     */
+    public ScenarioGenerator withRewards(double weaponChance, int maxAmmo, int maxHealth) {
+        checkChance(weaponChance);
+        checkRange(0,maxAmmo);
+        checkRange(0,maxHealth);
+        return new ScenarioGenerator(this.name,this.seed,this.roomCount,this.playerCount,this.minMonsters,this.maxMonsters,this.customProtectorChance,
+                weaponChance,maxAmmo,maxHealth,this.minPlayerHealth,this.maxPlayerHealth,
+                this.playerWeaponChance,this.maxPlayerAmmo,this.compactRoomMonsters);
+    }
+
+    /**
+     * @param minHealth
+     * @param maxHealth
+     * @param weaponChance the chance of a player having each weapon other than the fist
+     * @param maxAmmo the most rounds a player has for each weapon, on top of the 5 that come with it
+     * @return the same generator, but with players made as given
+     * @throws IllegalArgumentException if minHealth < 0, maxHealth < minHealth, weaponChance isn't between 0 and 1, or maxAmmo is negative
+     */
+    public ScenarioGenerator withPlayers(int minHealth, int maxHealth, double weaponChance, int maxAmmo) {
+        checkRange(minHealth,maxHealth);
+        checkChance(weaponChance);
+        checkRange(0,maxAmmo);
+        return new ScenarioGenerator(this.name,this.seed,this.roomCount,this.playerCount,this.minMonsters,this.maxMonsters,this.customProtectorChance,
+                this.rewardWeaponChance,this.maxRewardAmmo,this.maxRewardHealth,minHealth,maxHealth,
+                weaponChance,maxAmmo,this.compactRoomMonsters);
+    }
+
+    /**
+     * @param minimumMonsters
+     * @return the same generator, but making every room with at least the given number of monsters as a CompactRoom,
+     * which keeps them in primitive arrays rather than as Monster objects. The rooms are otherwise the same.
+     * @throws IllegalArgumentException if minimumMonsters < 0
+     */
+    public ScenarioGenerator withCompactRooms(int minimumMonsters) {
+        if(minimumMonsters<0) {
+            throw new IllegalArgumentException("minimumMonsters can't be negative");
+        }
+        return new ScenarioGenerator(this.name,this.seed,this.roomCount,this.playerCount,this.minMonsters,this.maxMonsters,this.customProtectorChance,
+                this.rewardWeaponChance,this.maxRewardAmmo,this.maxRewardHealth,this.minPlayerHealth,this.maxPlayerHealth,
+                this.playerWeaponChance,this.maxPlayerAmmo,minimumMonsters);
+    }
+
+    private static void checkRange(int min, int max) {
+        if(min<0||max<min) {
+            throw new IllegalArgumentException("range "+min+" to "+max+" must not be negative or empty");
+        }
+    }
+
+    /**
+     * @param random
+     * @param min at least 0
+     * @param max at least min
+     * @return a number from min to max, both included. Any range checkRange allows works, even one up to
+     * Integer.MAX_VALUE, whose size doesn't fit in an int; smaller ones draw from the random the way they always have,
+     * so a seed keeps making the same scenario
+     */
+    private static int between(SplittableRandom random, int min, int max) {
+        if(max<Integer.MAX_VALUE) {
+            return min+random.nextInt(max-min+1);
+        }
+        return (int)random.nextLong(min,(long)max+1);
+    }
+
+    private static void checkChance(double chance) {
+        if(!(chance>=0&&chance<=1)) {
+            throw new IllegalArgumentException("chance "+chance+" must be between 0 and 1");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return how many rooms the game has
+     */
+    public long getRoomCount() {
+        return this.roomCount;
+    }
+
+    /**
+     * @return how many players the game has
+     */
+    public int getPlayerCount() {
+        return this.playerCount;
+    }
+
+    /**
+     * Make every room and player of the game. Safe to call from several threads at once.
+     * @return a new GameBot for this scenario
+     * @throws IllegalStateException if the game has more rooms than fit in a GameBot
+     */
+    @Override
+    public GameBot createGameBot() {
+        if(this.roomCount>Integer.MAX_VALUE) {
+            throw new IllegalStateException(this.roomCount+" rooms don't fit in a GameBot");
+        }
+        GameBot bot=new GameBot();
+        this.rooms().forEach(bot::addRoom);
+        this.players().forEach(bot::addPlayer);
+        return bot;
+    }
+
+    /**
+     * @return a stream of new rooms, in order of their number, each made only when it is reached
+     */
+    public Stream<Room> rooms() {
+        return LongStream.range(0,this.roomCount).mapToObj(this::room);
+    }
+
+    /**
+     * @return a stream of new players, in order of their number, each made only when it is reached
+     */
+    public Stream<Player> players() {
+        return LongStream.range(0,this.playerCount).mapToObj(this::player);
+    }
+
+    /**
+     * @param number
+     * @return a new copy of the room with the given number, named "Room " followed by the number
+     * @throws IllegalArgumentException if there is no room with that number
+     */
+    public Room room(long number) {
+        if(number<0||number>=this.roomCount) {
+            throw new IllegalArgumentException("no room "+number);
+        }
+        SplittableRandom random=new SplittableRandom(mix(this.seed,2*number));
+        //the monsters of each type and protector, by MonsterType#ordinal() and then protector code, 0 being none
+        int[][] counts=new int[MONSTER_TYPES.length][MONSTER_TYPES.length+1];
+        int monsterCount=0;
+        for(MonsterType type:MONSTER_TYPES) {
+            int count=between(random,this.minMonsters[type.ordinal()],this.maxMonsters[type.ordinal()]);
+            for(int i=0;i<count;i++) {
+                MonsterType protector=type.getProtectedBy();
+                if(this.customProtectorChance>0&&random.nextDouble()<this.customProtectorChance) {
+                    MonsterType[] choices=CUSTOM_PROTECTORS[type.ordinal()];
+                    protector=choices[random.nextInt(choices.length)];
+                }
+                counts[type.ordinal()][protector==null ? 0 : protector.ordinal()+1]++;
+            }
+            monsterCount+=count;
+        }
+        Set<Weapon> weaponsWon=EnumSet.noneOf(Weapon.class);
+        Map<Weapon,Integer> ammoWon=new EnumMap<>(Weapon.class);
+        for(int w=1;w<WEAPONS.length;w++) {
+            if(random.nextDouble()<this.rewardWeaponChance) {
+                weaponsWon.add(WEAPONS[w]);
+            }
+            ammoWon.put(WEAPONS[w],between(random,0,this.maxRewardAmmo));
+        }
+        int healthWon=between(random,0,this.maxRewardHealth);
+        String roomName="Room "+number;
+        if(monsterCount>=this.compactRoomMonsters) {
+            return compactRoom(counts,weaponsWon,ammoWon,healthWon,roomName);
+        }
+        SortedSet<Monster> monsters=new TreeSet<>();
+        for(MonsterType type:MONSTER_TYPES) {
+            for(int code=0;code<=MONSTER_TYPES.length;code++) {
+                MonsterType protector=code==0 ? null : MONSTER_TYPES[code-1];
+                for(int i=0;i<counts[type.ordinal()][code];i++) {
+                    monsters.add(protector==type.getProtectedBy() ? new Monster(type) : new Monster(type,protector));
+                }
+            }
+        }
+        return new Room(monsters,weaponsWon,ammoWon,healthWon,roomName);
+    }
+
+    private static Room compactRoom(int[][] counts, Set<Weapon> weaponsWon, Map<Weapon,Integer> ammoWon, int healthWon, String name) {
+        List<MonsterType> types=new ArrayList<>();
+        List<MonsterType> protectors=new ArrayList<>();
+        List<Integer> groupCounts=new ArrayList<>();
+        for(MonsterType type:MONSTER_TYPES) {
+            for(int code=0;code<=MONSTER_TYPES.length;code++) {
+                if(counts[type.ordinal()][code]>0) {
+                    types.add(type);
+                    protectors.add(code==0 ? null : MONSTER_TYPES[code-1]);
+                    groupCounts.add(counts[type.ordinal()][code]);
+                }
+            }
+        }
+        int[] countArray=new int[groupCounts.size()];
+        for(int i=0;i<countArray.length;i++) {
+            countArray[i]=groupCounts.get(i);
+        }
+        return new CompactRoom(types.toArray(new MonsterType[0]),protectors.toArray(new MonsterType[0]),countArray,weaponsWon,ammoWon,healthWon,name);
+    }
+
+    /**
+     * @param number
+     * @return a new copy of the player with the given number, named "Player " followed by the number
+     * @throws IllegalArgumentException if there is no player with that number
+     */
+    public Player player(long number) {
+        if(number<0||number>=this.playerCount) {
+            throw new IllegalArgumentException("no player "+number);
+        }
+        SplittableRandom random=new SplittableRandom(mix(this.seed,2*number+1));
+        //a dead player can't be given weapons, so the health is only set once the inventory is in place
+        Player player=new Player("Player "+number,0);
+        for(int w=1;w<WEAPONS.length;w++) {
+            if(random.nextDouble()<this.playerWeaponChance) {
+                player.addWeapon(WEAPONS[w]);
+                player.addAmmunition(WEAPONS[w],between(random,0,this.maxPlayerAmmo));
+            }
+        }
+        player.setHealth(between(random,this.minPlayerHealth,this.maxPlayerHealth));
+        return player;
+    }
+
+    /**
+     * The finalizer of SplitMix64, applied twice, so that the seeds of neighbouring rooms and players have nothing in common
+     * @return the seed for the room or player with the given salt in the game with the given seed
+     */
+    private static long mix(long seed, long salt) {
+        long z=seed;
+        for(int round=0;round<2;round++) {
+            z+=salt*0x9E3779B97F4A7C15L;
+            z=(z^(z>>>30))*0xBF58476D1CE4E5B9L;
+            z=(z^(z>>>27))*0x94D049BB133111EBL;
+            z=z^(z>>>31);
+        }
+        return z;
+    }
+
+    /**
+     * A type's custom protector may only be a type that comes before it, when the types are put in order of how many
+     * protectors deep they are by default, and then by ordinal. Every default protector comes before the type it
+     * protects, so a monster's protectors, and theirs, always come before it, and it can't be among them.
+     */
+    private static MonsterType[][] customProtectors() {
+        int[] depth=new int[MONSTER_TYPES.length];
+        for(MonsterType type:MONSTER_TYPES) {
+            for(MonsterType p=type.getProtectedBy();p!=null&&depth[type.ordinal()]<MONSTER_TYPES.length;p=p.getProtectedBy()) {
+                depth[type.ordinal()]++;
+            }
+        }
+        MonsterType[][] choices=new MonsterType[MONSTER_TYPES.length][];
+        for(MonsterType type:MONSTER_TYPES) {
+            List<MonsterType> before=new ArrayList<>();
+            before.add(null);
+            for(MonsterType other:MONSTER_TYPES) {
+                if(depth[other.ordinal()]<depth[type.ordinal()]||(depth[other.ordinal()]==depth[type.ordinal()]&&other.ordinal()<type.ordinal())) {
+                    before.add(other);
+                }
+            }
+            choices[type.ordinal()]=before.toArray(new MonsterType[0]);
+        }
+        return choices;
+    }
+}
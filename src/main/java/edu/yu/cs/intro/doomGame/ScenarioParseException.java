@@ -0,0 +1,35 @@
+package edu.yu.cs.intro.doomGame;
+
+/**
+ * Thrown when a scenario text can't be parsed; says where in the text the problem is
+ */
+public class ScenarioParseException extends IllegalArgumentException {
+    private static final long serialVersionUID=1L;
+    private final int line;
+    private final int column;
+
+    /**
+     * @param message what is wrong
+     * @param line line of the text the problem starts on, counting from 1
+     * @param column column of that line the problem starts at, counting from 1
+     */
+    public ScenarioParseException(String message, int line, int column) {
+        super("line "+line+", column "+column+": "+message);
+        this.line=line;
+        this.column=column;
+    }
+
+    /**
+     * @return line of the text the problem starts on, counting from 1
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * @return column of that line the problem starts at, counting from 1
+     */
+    public int getColumn() {
+        return this.column;
+    }
+}
@@ -0,0 +1,499 @@
+package edu.yu.cs.intro.doomGame;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reads a scenario written as JSON, building each Room and Player as soon as its text has been read, so that only
+ * one room is held in memory at a time. For example:
+ * <pre>
+ * {
+ *   "rooms": [
+ *     {"name": "Easy Imps", "monsters": ["IMP", "IMP", "IMP"], "weapons": ["CHAINSAW"], "ammo": {"CHAINSAW": 2}, "health": 10},
+ *     {"name": "Guarded", "monsters": [{"type": "IMP", "protectedBy": "DEMON", "count": 2}, "DEMON"]}
+ *   ],
+ *   "players": [
+ *     {"name": "Player 1", "health": 100, "weapons": ["CHAINSAW"], "ammo": {"CHAINSAW": 1}}
+ *   ]
+ * }
+ * </pre>
+ * A room needs a name; its monsters, weapons, ammo and health won upon completion default to none.
+ * A monster is either a MonsterType name, or an object with a type, an optional custom protectedBy (which may be null),
+ * and an optional count of how many such monsters the room holds.
+ * A player needs a name and health. As with Player#addWeapon, each of its weapons comes with 5 rounds of ammunition;
+ * its ammo is added on top of those.
+ */
+public class ScenarioParser {
+    private final Reader reader;
+    private final char[] buffer=new char[8192];
+    private int position;
+    private int limit;
+    /**where the next character is*/
+    private int line=1;
+    private int column=1;
+    /**where the last token read started*/
+    private int tokenLine;
+    private int tokenColumn;
+
+    /**
+     * @param reader the scenario text; read as it is parsed, and not closed
+     */
+    public ScenarioParser(Reader reader) {
+        if(reader==null) {
+            throw new IllegalArgumentException("reader can't be null");
+        }
+        this.reader=reader;
+    }
+
+    /**
+     * Parse the given scenario text into a new GameBot, adding each room and player to it as soon as it is read
+     * @param reader
+     * @return a GameBot holding the scenario's rooms and players
+     * @throws IOException if the reader throws
+     * @throws ScenarioParseException if the text isn't a valid scenario
+     */
+    public static GameBot parse(Reader reader) throws IOException,ScenarioParseException {
+        GameBot bot=new GameBot();
+        new ScenarioParser(reader).parse(bot::addRoom,bot::addPlayer);
+        return bot;
+    }
+
+    /**
+     * Parse the scenario, handing each room and player to the given consumer as soon as its text has been read
+     * @param rooms
+     * @param players
+     * @throws IOException if the reader throws
+     * @throws ScenarioParseException if the text isn't a valid scenario
+     */
+    public void parse(Consumer<? super Room> rooms, Consumer<? super Player> players) throws IOException,ScenarioParseException {
+        if(this.beginObject()) {
+            do {
+                String key=this.readKey();
+                switch(key) {
+                    case "rooms":
+                        if(this.beginArray()) {
+                            do {
+                                rooms.accept(this.readRoom());
+                            } while(this.nextElement());
+                        }
+                        break;
+                    case "players":
+                        if(this.beginArray()) {
+                            do {
+                                players.accept(this.readPlayer());
+                            } while(this.nextElement());
+                        }
+                        break;
+                    default:
+                        throw new ScenarioParseException("unknown key \""+key+"\", expected \"rooms\" or \"players\"",this.tokenLine,this.tokenColumn);
+                }
+            } while(this.nextField());
+        }
+        this.skipWhitespace();
+        if(this.peek()!=-1) {
+            throw new ScenarioParseException("unexpected text after the end of the scenario",this.line,this.column);
+        }
+    }
+
+    private Room readRoom() throws IOException {
+        this.skipWhitespace();
+        int startLine=this.line;
+        int startColumn=this.column;
+        String name=null;
+        SortedSet<Monster> monsters=new TreeSet<>();
+        Set<Weapon> weapons=EnumSet.noneOf(Weapon.class);
+        Map<Weapon,Integer> ammo=new EnumMap<>(Weapon.class);
+        int health=0;
+        if(this.beginObject()) {
+            do {
+                String key=this.readKey();
+                switch(key) {
+                    case "name":
+                        name=this.readString();
+                        break;
+                    case "monsters":
+                        if(this.beginArray()) {
+                            do {
+                                this.readMonsters(monsters);
+                            } while(this.nextElement());
+                        }
+                        break;
+                    case "weapons":
+                        this.readWeapons(weapons);
+                        break;
+                    case "ammo":
+                        this.readAmmo(ammo);
+                        break;
+                    case "health":
+                        health=this.readInt();
+                        break;
+                    default:
+                        throw new ScenarioParseException("unknown room key \""+key+"\"",this.tokenLine,this.tokenColumn);
+                }
+            } while(this.nextField());
+        }
+        if(name==null) {
+            throw new ScenarioParseException("room has no name",startLine,startColumn);
+        }
+        return new Room(monsters,weapons,ammo,health,name);
+    }
+
+    /**
+     * read one entry of a room's monsters array, adding the monsters it describes to the set
+     * @param monsters
+     */
+    private void readMonsters(SortedSet<Monster> monsters) throws IOException {
+        this.skipWhitespace();
+        if(this.peek()=='"') {
+            monsters.add(new Monster(this.readMonsterType()));
+            return;
+        }
+        int startLine=this.line;
+        int startColumn=this.column;
+        MonsterType type=null;
+        boolean customProtector=false;
+        MonsterType protector=null;
+        int count=1;
+        if(this.beginObject()) {
+            do {
+                String key=this.readKey();
+                switch(key) {
+                    case "type":
+                        type=this.readMonsterType();
+                        break;
+                    case "protectedBy":
+                        customProtector=true;
+                        protector=this.readNull() ? null : this.readMonsterType();
+                        break;
+                    case "count":
+                        count=this.readInt();
+                        if(count<1) {
+                            throw new ScenarioParseException("count must be at least 1",this.tokenLine,this.tokenColumn);
+                        }
+                        break;
+                    default:
+                        throw new ScenarioParseException("unknown monster key \""+key+"\"",this.tokenLine,this.tokenColumn);
+                }
+            } while(this.nextField());
+        }
+        if(type==null) {
+            throw new ScenarioParseException("monster has no type",startLine,startColumn);
+        }
+        for(int i=0;i<count;i++) {
+            monsters.add(customProtector ? new Monster(type,protector) : new Monster(type));
+        }
+    }
+
+    private Player readPlayer() throws IOException {
+        this.skipWhitespace();
+        int startLine=this.line;
+        int startColumn=this.column;
+        String name=null;
+        Integer health=null;
+        Set<Weapon> weapons=EnumSet.noneOf(Weapon.class);
+        Map<Weapon,Integer> ammo=new EnumMap<>(Weapon.class);
+        if(this.beginObject()) {
+            do {
+                String key=this.readKey();
+                switch(key) {
+                    case "name":
+                        name=this.readString();
+                        break;
+                    case "health":
+                        health=this.readInt();
+                        break;
+                    case "weapons":
+                        this.readWeapons(weapons);
+                        break;
+                    case "ammo":
+                        this.readAmmo(ammo);
+                        break;
+                    default:
+                        throw new ScenarioParseException("unknown player key \""+key+"\"",this.tokenLine,this.tokenColumn);
+                }
+            } while(this.nextField());
+        }
+        if(name==null||health==null) {
+            throw new ScenarioParseException("player needs a name and health",startLine,startColumn);
+        }
+        //a dead player can't be given weapons or ammunition, so the health is only set once they are in place
+        Player player=new Player(name,0);
+        for(Weapon w:weapons) {
+            player.addWeapon(w);
+        }
+        for(Map.Entry<Weapon,Integer> rounds:ammo.entrySet()) {
+            player.addAmmunition(rounds.getKey(),rounds.getValue());
+        }
+        player.setHealth(health);
+        return player;
+    }
+
+    private void readWeapons(Set<Weapon> weapons) throws IOException {
+        if(this.beginArray()) {
+            do {
+                weapons.add(this.toWeapon(this.readString()));
+            } while(this.nextElement());
+        }
+    }
+
+    private void readAmmo(Map<Weapon,Integer> ammo) throws IOException {
+        if(this.beginObject()) {
+            do {
+                Weapon w=this.toWeapon(this.readKey());
+                int rounds=this.readInt();
+                if(rounds<0) {
+                    throw new ScenarioParseException("ammunition can't be negative",this.tokenLine,this.tokenColumn);
+                }
+                ammo.merge(w,rounds,Integer::sum);
+            } while(this.nextField());
+        }
+    }
+
+    private MonsterType readMonsterType() throws IOException {
+        String name=this.readString();
+        try {
+            return MonsterType.valueOf(name);
+        }catch(IllegalArgumentException e) {
+            throw new ScenarioParseException("unknown monster type \""+name+"\", expected one of "+Arrays.toString(MonsterType.values()),this.tokenLine,this.tokenColumn);
+        }
+    }
+
+    /**
+     * @param name the weapon's name, which must be the last token read
+     * @return the weapon
+     */
+    private Weapon toWeapon(String name) {
+        try {
+            return Weapon.valueOf(name);
+        }catch(IllegalArgumentException e) {
+            throw new ScenarioParseException("unknown weapon \""+name+"\", expected one of "+Arrays.toString(Weapon.values()),this.tokenLine,this.tokenColumn);
+        }
+    }
+
+    /**
+     * @return false if the object that was just opened is empty, i.e. has already been closed
+     */
+    private boolean beginObject() throws IOException {
+        this.expect('{',"'{'");
+        return !this.consumeIf('}');
+    }
+
+    /**
+     * @return true if another field follows the one just read, false if the object has been closed
+     */
+    private boolean nextField() throws IOException {
+        if(this.consumeIf(',')) {
+            return true;
+        }
+        this.expect('}',"',' or '}'");
+        return false;
+    }
+
+    /**
+     * @return false if the array that was just opened is empty, i.e. has already been closed
+     */
+    private boolean beginArray() throws IOException {
+        this.expect('[',"'['");
+        return !this.consumeIf(']');
+    }
+
+    /**
+     * @return true if another element follows the one just read, false if the array has been closed
+     */
+    private boolean nextElement() throws IOException {
+        if(this.consumeIf(',')) {
+            return true;
+        }
+        this.expect(']',"',' or ']'");
+        return false;
+    }
+
+    /**
+     * read a field's name and the ':' after it, leaving the token position at the name
+     * @return the name
+     */
+    private String readKey() throws IOException {
+        String key=this.readString();
+        int keyLine=this.tokenLine;
+        int keyColumn=this.tokenColumn;
+        this.expect(':',"':'");
+        this.tokenLine=keyLine;
+        this.tokenColumn=keyColumn;
+        return key;
+    }
+
+    private String readString() throws IOException {
+        this.expect('"',"a string");
+        StringBuilder s=new StringBuilder();
+        while(true) {
+            int c=this.read();
+            if(c==-1||c=='\n') {
+                throw new ScenarioParseException("unterminated string",this.tokenLine,this.tokenColumn);
+            }
+            if(c=='"') {
+                return s.toString();
+            }
+            if(c!='\\') {
+                s.append((char)c);
+                continue;
+            }
+            int escapeLine=this.line;
+            int escapeColumn=this.column-1;
+            c=this.read();
+            switch(c) {
+                case '"': case '\\': case '/':
+                    s.append((char)c);
+                    break;
+                case 'b':
+                    s.append('\b');
+                    break;
+                case 'f':
+                    s.append('\f');
+                    break;
+                case 'n':
+                    s.append('\n');
+                    break;
+                case 'r':
+                    s.append('\r');
+                    break;
+                case 't':
+                    s.append('\t');
+                    break;
+                case 'u':
+                    int code=0;
+                    for(int i=0;i<4;i++) {
+                        int digit=Character.digit(this.read(),16);
+                        if(digit<0) {
+                            throw new ScenarioParseException("bad \\u escape",escapeLine,escapeColumn);
+                        }
+                        code=code*16+digit;
+                    }
+                    s.append((char)code);
+                    break;
+                default:
+                    throw new ScenarioParseException("bad escape",escapeLine,escapeColumn);
+            }
+        }
+    }
+
+    private int readInt() throws IOException {
+        this.skipWhitespace();
+        this.markToken();
+        boolean negative=this.peek()=='-';
+        if(negative) {
+            this.read();
+        }
+        if(!isDigit(this.peek())) {
+            throw new ScenarioParseException("expected a whole number",this.tokenLine,this.tokenColumn);
+        }
+        long value=0;
+        while(isDigit(this.peek())) {
+            value=value*10+(this.read()-'0');
+            if(value>(long)Integer.MAX_VALUE+1) {
+                throw new ScenarioParseException("number is too large",this.tokenLine,this.tokenColumn);
+            }
+        }
+        int next=this.peek();
+        if(next=='.'||next=='e'||next=='E') {
+            throw new ScenarioParseException("expected a whole number",this.tokenLine,this.tokenColumn);
+        }
+        value=negative ? -value : value;
+        if(value>Integer.MAX_VALUE) {
+            throw new ScenarioParseException("number is too large",this.tokenLine,this.tokenColumn);
+        }
+        return (int)value;
+    }
+
+    /**
+     * @return true if the next token is null, which is consumed; false if it is anything else, which is left unread
+     */
+    private boolean readNull() throws IOException {
+        this.skipWhitespace();
+        if(this.peek()!='n') {
+            return false;
+        }
+        this.markToken();
+        for(char c:"null".toCharArray()) {
+            if(this.read()!=c) {
+                throw new ScenarioParseException("expected null or a monster type",this.tokenLine,this.tokenColumn);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(int c) {
+        return c>='0'&&c<='9';
+    }
+
+    private void expect(char c, String expected) throws IOException {
+        this.skipWhitespace();
+        this.markToken();
+        int actual=this.read();
+        if(actual!=c) {
+            String found=actual==-1 ? "end of text" : "'"+(char)actual+"'";
+            throw new ScenarioParseException("expected "+expected+" but found "+found,this.tokenLine,this.tokenColumn);
+        }
+    }
+
+    private boolean consumeIf(char c) throws IOException {
+        this.skipWhitespace();
+        if(this.peek()==c) {
+            this.markToken();
+            this.read();
+            return true;
+        }
+        return false;
+    }
+
+    private void markToken() {
+        this.tokenLine=this.line;
+        this.tokenColumn=this.column;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while(true) {
+            int c=this.peek();
+            if(c==' '||c=='\t'||c=='\n'||c=='\r') {
+                this.read();
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the next character, without consuming it, or -1 at the end of the text
+     */
+    private int peek() throws IOException {
+        if(this.position==this.limit) {
+            int read=this.reader.read(this.buffer);
+            if(read<=0) {
+                return -1;
+            }
+            this.position=0;
+            this.limit=read;
+        }
+        return this.buffer[this.position];
+    }
+
+    /**
+     * @return the next character, which is consumed, or -1 at the end of the text
+     */
+    private int read() throws IOException {
+        int c=this.peek();
+        if(c==-1) {
+            return -1;
+        }
+        this.position++;
+        if(c=='\n') {
+            this.line++;
+            this.column=1;
+        }
+        else {
+            this.column++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,68 @@
+package edu.yu.cs.intro.doomGame;
+
+/**
+ * The outcome of playing one Scenario
+ */
+public class ScenarioResult {
+    private final String name;
+    private final boolean completed;
+    private final long buildNanos;
+    private final long playNanos;
+    private final Throwable failure;
+
+    /**
+     * @param name the scenario's name
+     * @param completed did GameBot#play complete every room?
+     * @param buildNanos time taken to build the scenario's GameBot
+     * @param playNanos time taken by GameBot#play
+     * @param failure what building or playing the scenario threw, or null if it didn't throw
+     */
+    protected ScenarioResult(String name, boolean completed, long buildNanos, long playNanos, Throwable failure) {
+        this.name=name;
+        this.completed=completed;
+        this.buildNanos=buildNanos;
+        this.playNanos=playNanos;
+        this.failure=failure;
+    }
+
+    /**
+     * @return the scenario's name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return true if every room was completed; false if not, or if the scenario failed
+     */
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    /**
+     * @return nanoseconds taken to build the scenario's GameBot
+     */
+    public long getBuildNanos() {
+        return this.buildNanos;
+    }
+
+    /**
+     * @return nanoseconds taken by GameBot#play
+     */
+    public long getPlayNanos() {
+        return this.playNanos;
+    }
+
+    /**
+     * @return what building or playing the scenario threw, or null if it didn't throw
+     */
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    @Override
+    public String toString() {
+        String outcome=this.failure!=null ? "failed with "+this.failure : this.completed ? "was completed" : "could not be completed";
+        return "Scenario "+this.name+" "+outcome+" (build "+this.buildNanos/1000+"us, play "+this.playNanos/1000+"us)";
+    }
+}
@@ -0,0 +1,204 @@
+package edu.yu.cs.intro.doomGame;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Plays a game in ticks, with every live player acting at once, rather than one kill at a time as GameBot does.
+ * At the start of a tick each player chooses a kill, against the same GameState, and if the engine has a pool the players
+ * choose on its threads at the same time. At the end of the tick the chosen kills are made, which gives the next state.
+ * Two choices conflict when they are in the same room, since a kill changes the health lost to the whole room and may
+ * complete it: the player that comes first in the players the engine was given makes its kill, and the others do nothing
+ * that tick. So every player and every room has at most one kill made per tick, those kills don't touch each other, and
+ * the states the engine goes through depend only on the game, never on the pool or on how its threads were scheduled.
+ * So that the players don't all go for the same room, each starts looking at its own place in the rooms, spread evenly
+ * over them, and goes on from there.
+ * The engine never changes the game's rooms and players: it works on its own GameState, which, like GameState#kill,
+ * only lets a player make a kill it survives, and each tick returns the kills it made.
+ */
+public class TickEngine {
+    private static final int MONSTER_TYPES=MonsterType.values().length;
+    private final Room[] rooms;
+    private final Player[] players;
+    private GameState state;
+    private ForkJoinPool pool;
+    private long ticks;
+
+    /**
+     * @param rooms the game's rooms, which players look through least dangerous first, as they are now
+     * @param players the game's players; earlier players win conflicts
+     * @throws IllegalArgumentException if either collection is null or holds null
+     */
+    public TickEngine(Collection<Room> rooms, Collection<Player> players) {
+        this.state=GameState.of(rooms,players);
+        List<Room> ordered=new ArrayList<>(new LinkedHashSet<>(rooms));
+        ordered.sort(Room.DANGER_ORDER);
+        this.rooms=ordered.toArray(new Room[0]);
+        this.players=new LinkedHashSet<>(players).toArray(new Player[0]);
+    }
+
+    /**
+     * Have the players choose their kills on the given pool. The states the engine goes through are the same with or
+     * without one.
+     * @param pool the pool to choose on, or null to go back to choosing on the calling thread
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.pool=pool;
+    }
+
+    /**
+     * @return the state of the game after the last tick
+     */
+    public GameState getState() {
+        return this.state;
+    }
+
+    /**
+     * @return how many ticks have been played
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Play ticks until one makes no kills
+     * @return true if all rooms were completed, false if not
+     */
+    public boolean play() {
+        boolean progress=true;
+        while(progress) {
+            progress=!this.tick().isEmpty();
+        }
+        return this.state.getRoomsCompleted()==this.state.getRoomCount();
+    }
+
+    /**
+     * Play one tick: every live player chooses a kill, and the kills that don't conflict are made
+     * @return the kills made, in the order of the players that made them; empty if no player could make one
+     */
+    public List<Action> tick() {
+        GameState current=this.state;
+        Action[] chosen=this.choose(current);
+        //the first player to choose a room gets it
+        Set<Room> taken=Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Action> made=new ArrayList<>();
+        for(Action a:chosen) {
+            if(a!=null&&taken.add(a.room)) {
+                made.add(a);
+            }
+        }
+        GameState next=current;
+        for(Action a:made) {
+            next=next.kill(a.player,a.room,a.monster);
+        }
+        this.state=next;
+        this.ticks++;
+        return Collections.unmodifiableList(made);
+    }
+
+    /**
+     * @param current
+     * @return by player, the kill it chooses, or null if it can't make any
+     */
+    private Action[] choose(GameState current) {
+        Action[] chosen=new Action[this.players.length];
+        if(this.pool==null||this.players.length<2) {
+            for(int p=0;p<this.players.length;p++) {
+                chosen[p]=this.choose(current,p);
+            }
+            return chosen;
+        }
+        //a few tasks per thread, so one with slow players doesn't hold up the tick
+        int tasks=Math.min(this.players.length,4*this.pool.getParallelism());
+        List<Callable<Void>> choices=new ArrayList<>(tasks);
+        for(int t=0;t<tasks;t++) {
+            int from=(int)((long)this.players.length*t/tasks);
+            int to=(int)((long)this.players.length*(t+1)/tasks);
+            choices.add(()->{
+                for(int p=from;p<to;p++) {
+                    chosen[p]=this.choose(current,p);
+                }
+                return null;
+            });
+        }
+        try {
+            for(Future<Void> f:this.pool.invokeAll(choices)) {
+                f.get();
+            }
+        }catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while players were choosing",e);
+        }catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return chosen;
+    }
+
+    /**
+     * Find the first kill the player can make, looking through the rooms from its own place in them.
+     * Monsters of the same type and protector in a room are interchangeable, so only one of each is asked about.
+     * Only reads the state, so it is safe to call for many players at once.
+     * @param current
+     * @param p the player's place in this.players
+     * @return the kill, or null if the player can't make any
+     */
+    private Action choose(GameState current, int p) {
+        Player player=this.players[p];
+        if(current.isDead(player)||this.rooms.length==0) {
+            return null;
+        }
+        int start=(int)((long)this.rooms.length*p/this.players.length);
+        boolean[] asked=new boolean[MONSTER_TYPES*(MONSTER_TYPES+1)];
+        for(int i=0;i<this.rooms.length;i++) {
+            Room room=this.rooms[(start+i)%this.rooms.length];
+            if(current.isCompleted(room)) {
+                continue;
+            }
+            Arrays.fill(asked,false);
+            for(Monster m:current.getLiveMonsters(room)) {
+                MonsterType protector=m.getProtectedBy();
+                int kind=m.getMonsterType().ordinal()*(MONSTER_TYPES+1)+(protector==null ? 0 : protector.ordinal()+1);
+                if(asked[kind]) {
+                    continue;
+                }
+                asked[kind]=true;
+                if(current.canKill(player,m,room)) {
+                    return new Action(player,room,m);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A kill made in a tick
+     */
+    public static final class Action {
+        private final Player player;
+        private final Room room;
+        private final Monster monster;
+
+        private Action(Player player, Room room, Monster monster) {
+            this.player=player;
+            this.room=room;
+            this.monster=monster;
+        }
+
+        public Player getPlayer() {
+            return this.player;
+        }
+
+        public Room getRoom() {
+            return this.room;
+        }
+
+        /**
+         * @return the monster killed; its live protectors were killed before it
+         */
+        public Monster getMonster() {
+            return this.monster;
+        }
+    }
+}
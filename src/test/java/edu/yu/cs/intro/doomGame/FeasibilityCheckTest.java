@@ -0,0 +1,53 @@
+package edu.yu.cs.intro.doomGame;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeasibilityCheckTest {
+    private static Room room(String name, MonsterType... types) {
+        SortedSet<Monster> monsters=new TreeSet<>();
+        for(MonsterType t:types) {
+            monsters.add(new Monster(t,null));
+        }
+        return new Room(monsters,new HashSet<>(),new HashMap<>(),0,name);
+    }
+
+    @Test
+    void completedRoomWithNoPlayersIsNotBlocked() {
+        FeasibilityCheck check=FeasibilityCheck.of(List.of(room("done")),List.of());
+        assertTrue(check.mayBeWinnable(),check.toString());
+    }
+
+    @Test
+    void completedRoomWithOnlyDeadPlayersIsNotBlocked() {
+        FeasibilityCheck check=FeasibilityCheck.of(List.of(room("done")),List.of(new Player("dead",-1)));
+        assertTrue(check.mayBeWinnable(),check.toString());
+    }
+
+    @Test
+    void roomWithLiveMonstersAndNoPlayersIsBlocked() {
+        Room imps=room("imps",MonsterType.IMP);
+        FeasibilityCheck check=FeasibilityCheck.of(List.of(room("done"),imps),List.of());
+        assertFalse(check.mayBeWinnable());
+        for(FeasibilityCheck.Blocker b:check.getBlockers()) {
+            //a blocker is about the room with monsters, or about the whole game
+            assertTrue(b.getRoom()==imps||b.getRoom()==null,b.toString());
+        }
+    }
+
+    @Test
+    void playerNeedsMoreHealthThanTheEncounter() {
+        Room imps=room("imps",MonsterType.IMP,MonsterType.IMP);
+        int encounter=imps.getPlayerHealthLostPerEncounter();
+        FeasibilityCheck check=FeasibilityCheck.of(List.of(imps),List.of(new Player("even",encounter)));
+        assertFalse(check.mayBeWinnable());
+        assertEquals(FeasibilityCheck.Resource.HEALTH,check.getBlockers().get(0).getResource());
+        assertSame(imps,check.getBlockers().get(0).getRoom());
+        check=FeasibilityCheck.of(List.of(imps),List.of(new Player("ahead",encounter+1)));
+        for(FeasibilityCheck.Blocker b:check.getBlockers()) {
+            assertNotSame(imps,b.getRoom(),b.toString());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package edu.yu.cs.intro.doomGame;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays copies of the same seeded games two ways that are meant to end the same, and compares the rooms and players
+ * afterwards. Monster#compareTo breaks ties between monsters of the same type by their hash codes, so two copies of a room
+ * can have their monsters killed in different orders; the games here have at most one monster of each type in a room.
+ */
+class GameBotEquivalenceTest {
+    private static final int ROOMS=200;
+    private static final int GAMES=300;
+
+    @Test
+    void clearRoomEndsLikeKillMonster() {
+        checkClearRoom(oneOfEachType(new ScenarioGenerator("clear",1,ROOMS,1)).withPlayers(300,600,1.0,40));
+    }
+
+    @Test
+    void clearRoomEndsLikeKillMonsterInCompactRooms() {
+        checkClearRoom(oneOfEachType(new ScenarioGenerator("compact",2,ROOMS,1)).withPlayers(300,600,1.0,40).withCompactRooms(1));
+    }
+
+    /**
+     * for every room of the generator, clear one copy of it with #clearRoom and the other with #killMonster, each with a
+     * copy of its first player
+     */
+    private static void checkClearRoom(ScenarioGenerator generator) {
+        for(long i=0;i<ROOMS;i++) {
+            Room cleared=generator.room(i);
+            Player clearer=generator.player(0);
+            GameBot batched=bot(cleared,clearer);
+            List<String> batchedKills=recordKills(batched);
+            batched.clearRoom(clearer,cleared);
+
+            Room killed=generator.room(i);
+            Player killer=generator.player(0);
+            GameBot oneByOne=bot(killed,killer);
+            List<String> oneByOneKills=recordKills(oneByOne);
+            //like #clearRoom, a room that had no monsters to kill gives no rewards
+            boolean killedAny=false;
+            for(Monster m:killed.snapshotLiveMonsters()) {
+                if(!m.isDead()) {
+                    oneByOne.killMonster(killer,killed,m);
+                    killedAny=true;
+                }
+            }
+            if(killedAny&&killed.isCompleted()) {
+                oneByOne.reapCompletionRewards(killer,killed);
+            }
+
+            String room=killed.getName();
+            assertEquals(oneByOneKills,batchedKills,room);
+            assertEquals(describe(killed),describe(cleared),room);
+            assertEquals(describe(killer),describe(clearer),room);
+        }
+    }
+
+    @Test
+    void playIncrementallyEndsLikePlay() {
+        for(int seed=0;seed<GAMES;seed++) {
+            ScenarioGenerator generator=oneOfEachType(new ScenarioGenerator("game",seed,1+seed%30,1+seed%4)).withPlayers(10,150,0.3,20);
+            assertEquals(play(generator.createGameBot(),false),play(generator.createGameBot(),true),"seed "+seed);
+        }
+    }
+
+    private static ScenarioGenerator oneOfEachType(ScenarioGenerator generator) {
+        for(MonsterType t:MonsterType.values()) {
+            generator=generator.withMonsterCount(t,0,1);
+        }
+        return generator;
+    }
+
+    private static GameBot bot(Room room, Player player) {
+        GameBot bot=new GameBot();
+        bot.addRoom(room);
+        bot.addPlayer(player);
+        return bot;
+    }
+
+    /**
+     * @return a list the bot's kills are added to from now on, each as the monster's type and protector and the weapon used
+     */
+    private static List<String> recordKills(GameBot bot) {
+        List<String> kills=new ArrayList<>();
+        bot.setGameEventListener(new GameEventListener() {
+            @Override
+            public void monsterKilled(Player player, Monster monster, Room room, Weapon weapon, int rounds) {
+                kills.add(monster.getMonsterType()+"/"+monster.getProtectedBy()+" with "+weapon);
+            }
+        });
+        return kills;
+    }
+
+    /**
+     * @return the outcome of the game, then the state of every room and every player it started with
+     */
+    private static String play(GameBot bot, boolean incrementally) {
+        List<Room> rooms=new ArrayList<>(bot.getAllRooms());
+        List<Player> players=new ArrayList<>(bot.getLivePlayers());
+        StringBuilder state=new StringBuilder();
+        try {
+            state.append(incrementally ? bot.playIncrementally() : bot.play());
+        }catch(RuntimeException e) {
+            state.append(e);
+        }
+        for(Room r:rooms) {
+            state.append(' ').append(describe(r));
+        }
+        for(Player p:players) {
+            state.append(' ').append(describe(p));
+        }
+        return state.toString();
+    }
+
+    private static String describe(Room room) {
+        StringBuilder s=new StringBuilder(room.getName()).append(room.isCompleted() ? " completed" : " incomplete");
+        for(MonsterType t:MonsterType.values()) {
+            s.append(',').append(room.getLiveMonsterCount(t));
+        }
+        return s.append(" dead ").append(room.getDeadMonsters().size()).toString();
+    }
+
+    private static String describe(Player player) {
+        StringBuilder s=new StringBuilder(player.getName()).append(':').append(player.getHealth());
+        for(Weapon w:Weapon.values()) {
+            s.append(',').append(player.hasWeapon(w) ? w.toString() : "-").append(player.getAmmunitionRoundsForWeapon(w));
+        }
+        return s.toString();
+    }
+}